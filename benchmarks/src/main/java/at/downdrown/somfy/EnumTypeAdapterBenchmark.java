@@ -0,0 +1,57 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.DeviceType;
+import at.downdrown.somfy.gson.CapabilityTypeAdapter;
+import at.downdrown.somfy.gson.CategoryTypeAdapter;
+import at.downdrown.somfy.gson.DeviceTypeTypeAdapter;
+import com.google.gson.stream.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading single enum values with the Gson type adapters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnumTypeAdapterBenchmark {
+
+    private final CapabilityTypeAdapter capabilityTypeAdapter = new CapabilityTypeAdapter();
+    private final CategoryTypeAdapter categoryTypeAdapter = new CategoryTypeAdapter();
+    private final DeviceTypeTypeAdapter deviceTypeTypeAdapter = new DeviceTypeTypeAdapter();
+
+    private final String capability = "{\"name\": \"position_low_speed\", \"parameters\": [{\"name\": \"position\", \"type\": \"integer\"}]}";
+    private final String category = "\"roller_shutter\"";
+    private final String deviceType = "\"roller_shutter_positionable_stateful_rs100\"";
+
+    @Benchmark
+    public Capability capability() throws IOException {
+        return capabilityTypeAdapter.read(new JsonReader(new StringReader(capability)));
+    }
+
+    @Benchmark
+    public Category category() throws IOException {
+        return categoryTypeAdapter.read(new JsonReader(new StringReader(category)));
+    }
+
+    @Benchmark
+    public DeviceType deviceType() throws IOException {
+        return deviceTypeTypeAdapter.read(new JsonReader(new StringReader(deviceType)));
+    }
+}
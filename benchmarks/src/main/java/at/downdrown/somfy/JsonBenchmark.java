@@ -0,0 +1,54 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Device;
+import com.google.gson.stream.JsonReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Deserialization of device lists, {@code deviceCount = 0} uses the recorded {@code devices.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"0", "1000", "10000"})
+    private int deviceCount;
+
+    private String devices;
+
+    @Setup
+    public void setUp() {
+        devices = Payloads.devices(deviceCount);
+    }
+
+    @Benchmark
+    public Device[] fromJson() {
+        return Json.fromJson(devices, Device[].class);
+    }
+
+    @Benchmark
+    public void streamArray(Blackhole blackhole) {
+        try (Stream<Device> stream = Json.streamArray(new JsonReader(new StringReader(devices)), Device.class)) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+}
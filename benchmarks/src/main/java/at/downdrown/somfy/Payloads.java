@@ -0,0 +1,44 @@
+package at.downdrown.somfy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Test payloads shared by the benchmarks.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    static String read(String filename) {
+        try (InputStream inputStream = Objects.requireNonNull(Payloads.class.getResourceAsStream(filename), filename)) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the device list of the given size, {@code 0} returns the recorded {@code devices.json}.
+     */
+    static String devices(int deviceCount) {
+        if (deviceCount == 0) {
+            return read("devices.json");
+        }
+
+        final String device = read("device.json").trim();
+        final StringBuilder devices = new StringBuilder(device.length() * deviceCount + 2);
+        devices.append('[');
+        for (int i = 0; i < deviceCount; i++) {
+            if (i > 0) {
+                devices.append(',');
+            }
+            devices.append(device.replaceFirst("\"id\"\\s*:\\s*\"[^\"]*\"", "\"id\": \"device-" + i + "\""));
+        }
+        return devices.append(']').toString();
+    }
+}
@@ -0,0 +1,53 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing commands, building endpoint URIs and parsing redirect URIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestConstructionBenchmark {
+
+    private final Command command = Command.ofCapability(Capability.POSITION,
+        Command.Parameter.ofCapabilityParameter(Capability.Parameter.POSITION, 40));
+
+    private final SomfyEndpoints endpoints = new SomfyEndpoints(SomfyProperties.builder().build());
+
+    private final URI redirectUri = URI.create("https://my.callback.url/somfy?code=my-somfy-authorization-code&state=4b1f7c6e-6c8e-4a4a-9a0b-0a8f8e4f4f4f");
+
+    @Benchmark
+    public String commandToJson() {
+        return Json.toJson(command);
+    }
+
+    @Benchmark
+    public URI deviceExecutionUri() {
+        return endpoints.deviceExecution("io://1234-5678-9012/12345678");
+    }
+
+    @Benchmark
+    public Map<String, List<String>> getQueryParams() {
+        return UriUtils.getQueryParams(redirectUri);
+    }
+}
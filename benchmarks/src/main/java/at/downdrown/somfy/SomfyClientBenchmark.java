@@ -0,0 +1,95 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.LocalDateTime.now;
+
+/**
+ * End-to-end client calls against an in-process {@link StubHttpClient}, covering token handling,
+ * request construction, the transport and deserialization. Rate limiting and request coalescing
+ * are disabled so that every invocation does the full work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SomfyClientBenchmark {
+
+    private final Command command = Command.ofCapability(Capability.POSITION,
+        Command.Parameter.ofCapabilityParameter(Capability.Parameter.POSITION, 40));
+
+    private SomfyClient client;
+
+    @Setup
+    public void setUp() {
+        final String devices = Payloads.devices(0);
+        final String device = Payloads.read("device.json");
+        final String execution = Payloads.read("execution.json");
+
+        final SomfyProperties properties = SomfyProperties.builder()
+            .callbackUrl("https://my.callback.url")
+            .consumerKey("a-consumer-key")
+            .consumerSecret("a-consumer-secret")
+            .requestsPerSecond(0)
+            .coalesceRequests(false)
+            .build();
+
+        final SomfyToken token = SomfyToken.builder()
+            .issuedAt(now())
+            .accessToken("a-access-token")
+            .refreshToken("a-refresh-token")
+            .accessTokenExpiresAt(now().plusYears(1))
+            .build();
+
+        client = SomfyClient.builder(properties, token)
+            .httpClient(new StubHttpClient(request -> {
+                final String path = request.uri().getPath();
+                if (path.endsWith("/exec")) {
+                    return execution;
+                }
+                return path.endsWith("/device") ? devices : device;
+            }))
+            .build();
+    }
+
+    @Benchmark
+    public List<Device> listDevices() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return client.listDevices("1234-5678-91011-121314");
+    }
+
+    @Benchmark
+    public void forEachDevice(Blackhole blackhole) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        client.forEachDevice("1234-5678-91011-121314", blackhole::consume);
+    }
+
+    @Benchmark
+    public Device getDeviceById() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return client.getDeviceById("1");
+    }
+
+    @Benchmark
+    public String execute() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return client.execute(command, "1");
+    }
+}
@@ -0,0 +1,53 @@
+package at.downdrown.somfy;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+@Slf4j(topic = "somfyclient")
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class AtomicFiles {
+
+    /**
+     * Writes the {@code content} to a temporary file in the same directory first, which is then renamed to the
+     * actual file. The rename is atomic, so concurrent readers either see the old or the new content.
+     */
+    static void write(Path path, ByteBuffer content) throws IOException {
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(path.getParent());
+            // temporary files are only readable by the owner on POSIX file systems
+            temporaryFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporaryFile, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                log.debug("Atomic move is not supported for {}, replacing the file instead", path);
+                Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException e) {
+                    log.warn("Could not delete temporary file {}", temporaryFile, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyCacheProperties;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Site;
+
+/**
+ * A {@link SomfyClient} that keeps {@link Site}s and {@link Device}s in a local cache
+ * and only asks Somfy's Open API once an entry has expired or was evicted.
+ * <p>
+ * Listing the devices of a site also caches each single device and executing a command
+ * on a device invalidates the cached entries of that device.
+ *
+ * @author Manfred Huber
+ * @see SomfyCacheProperties
+ */
+public interface CachingSomfyClient extends SomfyClient {
+
+    static CachingSomfyClient newCachingClient(SomfyClient delegate) {
+        return newCachingClient(delegate, SomfyCacheProperties.builder().build());
+    }
+
+    static CachingSomfyClient newCachingClient(SomfyClient delegate, SomfyCacheProperties cacheProperties) {
+        return new CachingSomfyClientImpl(delegate, cacheProperties, System::nanoTime);
+    }
+
+    /**
+     * Puts all {@link Site}s and {@link Device}s of the given {@link TopologySnapshot} into the cache,
+     * replacing any cached entries. The entries expire like entries that have been listed just now.
+     *
+     * @param snapshot the snapshot, e.g. as read from a file on start.
+     */
+    void preload(TopologySnapshot snapshot);
+
+    /**
+     * Removes the {@link Site} with the given {@code siteId} and its device list from the cache.
+     *
+     * @param siteId the ID of the site that should be invalidated.
+     */
+    void invalidateSite(String siteId);
+
+    /**
+     * Removes the {@link Device} with the given {@code deviceId} and the device list
+     * of its {@link Site} from the cache.
+     *
+     * @param deviceId the ID of the device that should be invalidated.
+     */
+    void invalidateDevice(String deviceId);
+
+    /**
+     * Removes all entries from the cache.
+     */
+    void invalidateAll();
+
+}
@@ -0,0 +1,185 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyCacheProperties;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Job;
+import at.downdrown.somfy.domain.Site;
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+@Slf4j(topic = "somfyclient")
+final class CachingSomfyClientImpl implements CachingSomfyClient {
+
+    private static final String ALL_SITES = "";
+
+    private final SomfyClient delegate;
+
+    private final ExpiringLruCache<String, List<Site>> siteListCache;
+    private final ExpiringLruCache<String, Site> siteCache;
+    private final ExpiringLruCache<String, List<Device>> deviceListCache;
+    private final ExpiringLruCache<String, Device> deviceCache;
+
+    CachingSomfyClientImpl(SomfyClient delegate, SomfyCacheProperties cacheProperties, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.siteListCache = new ExpiringLruCache<>(1, cacheProperties.getSiteTtl(), nanoClock);
+        this.siteCache = new ExpiringLruCache<>(cacheProperties.getMaxSites(), cacheProperties.getSiteTtl(), nanoClock);
+        this.deviceListCache = new ExpiringLruCache<>(cacheProperties.getMaxSites(), cacheProperties.getDeviceTtl(), nanoClock);
+        this.deviceCache = new ExpiringLruCache<>(cacheProperties.getMaxDevices(), cacheProperties.getDeviceTtl(), nanoClock);
+    }
+
+    @Override
+    public void setToken(SomfyToken somfyToken) {
+        delegate.setToken(somfyToken);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public List<Site> listSites() throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        List<Site> sites = siteListCache.get(ALL_SITES);
+        if (sites == null) {
+            sites = delegate.listSites();
+            siteListCache.put(ALL_SITES, sites);
+            sites.forEach(site -> siteCache.put(site.getId(), site));
+        }
+        return sites;
+    }
+
+    @Override
+    public Site getSiteById(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        Site site = siteCache.get(siteId);
+        if (site == null) {
+            site = delegate.getSiteById(siteId);
+            if (site != null) {
+                siteCache.put(siteId, site);
+            }
+        }
+        return site;
+    }
+
+    @Override
+    public List<Device> listDevices(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        List<Device> devices = deviceListCache.get(siteId);
+        if (devices == null) {
+            devices = delegate.listDevices(siteId);
+            deviceListCache.put(siteId, devices);
+            devices.forEach(this::cacheDevice);
+        }
+        return devices;
+    }
+
+    @Override
+    public Stream<Device> streamDevices(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        final List<Device> devices = deviceListCache.get(siteId);
+        if (devices != null) {
+            return devices.stream();
+        }
+        return delegate.streamDevices(siteId).peek(this::cacheDevice);
+    }
+
+    @Override
+    public void forEachDevice(String siteId, Consumer<Device> consumer) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        try (Stream<Device> devices = streamDevices(siteId)) {
+            devices.forEach(consumer);
+        }
+    }
+
+    @Override
+    public Device getDeviceById(String deviceId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        Device device = deviceCache.get(deviceId);
+        if (device == null) {
+            device = delegate.getDeviceById(deviceId);
+            if (device != null) {
+                cacheDevice(device);
+            }
+        }
+        return device;
+    }
+
+    @Override
+    public Job getJobById(String jobId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        // jobs change their status, so they are never cached
+        return delegate.getJobById(jobId);
+    }
+
+    @Override
+    public String execute(Command command, String deviceId) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        try {
+            return delegate.execute(command, deviceId);
+        } finally {
+            invalidateDevice(deviceId);
+        }
+    }
+
+    @Override
+    public Map<String, ExecutionResult> executeAll(Command command, Collection<String> deviceIds) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        try {
+            return delegate.executeAll(command, deviceIds);
+        } finally {
+            deviceIds.forEach(this::invalidateDevice);
+        }
+    }
+
+    @Override
+    public Map<String, ExecutionResult> activate(Scene scene) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        try {
+            return delegate.activate(scene);
+        } finally {
+            scene.getDeviceIds().forEach(this::invalidateDevice);
+        }
+    }
+
+    @Override
+    public void preload(TopologySnapshot snapshot) {
+        siteListCache.put(ALL_SITES, snapshot.getSites());
+        snapshot.getSites().forEach(site -> siteCache.put(site.getId(), site));
+        snapshot.getDevicesBySiteId().forEach((siteId, devices) -> {
+            deviceListCache.put(siteId, devices);
+            devices.forEach(this::cacheDevice);
+        });
+        log.debug("Preloaded {} sites from topology snapshot created at {}", snapshot.getSites().size(), snapshot.getCreatedAt());
+    }
+
+    @Override
+    public void invalidateSite(String siteId) {
+        siteListCache.clear();
+        siteCache.remove(siteId);
+        deviceListCache.remove(siteId);
+    }
+
+    @Override
+    public void invalidateDevice(String deviceId) {
+        final Device device = deviceCache.remove(deviceId);
+        if (device != null && device.getSiteId() != null) {
+            deviceListCache.remove(device.getSiteId());
+        } else {
+            // we don't know which site the device belongs to
+            deviceListCache.clear();
+        }
+        log.debug("Invalidated cached device {}", deviceId);
+    }
+
+    @Override
+    public void invalidateAll() {
+        siteListCache.clear();
+        siteCache.clear();
+        deviceListCache.clear();
+        deviceCache.clear();
+    }
+
+    private void cacheDevice(Device device) {
+        deviceCache.put(device.getId(), device);
+    }
+}
@@ -0,0 +1,33 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Command;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Queues {@link Command}s per device in front of {@link SomfyAsyncClient#executeAsync(Command, String)}.
+ * <p>
+ * Commands for the same device are sent one after another, while commands for different devices are sent in parallel.
+ * A command that moves a device ({@code open}, {@code close}, {@code position}, {@code position_low_speed} or
+ * {@code stop}) supersedes all moving commands for that device that have not been sent yet, so only the last
+ * one is executed. Other commands are never collapsed.
+ *
+ * @author Manfred Huber
+ */
+public interface CommandQueue {
+
+    static CommandQueue newCommandQueue(SomfyAsyncClient client) {
+        return new CommandQueueImpl(client);
+    }
+
+    /**
+     * Queues a {@link Command} for a device.
+     *
+     * @param command  the command that should be executed.
+     * @param deviceId the ID of the device for which the command should be executed.
+     * @return a future completing with the {@code jobId} of the execution. If the command has been superseded
+     * by a later command, the future completes with the {@code jobId} of the command that has actually been sent.
+     */
+    CompletableFuture<String> submit(Command command, String deviceId);
+
+}
@@ -0,0 +1,148 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j(topic = "somfyclient")
+final class CommandQueueImpl implements CommandQueue {
+
+    /**
+     * Capabilities that move a device. Only the last of them has to be executed.
+     */
+    private static final Set<Capability> MOVING_CAPABILITIES = EnumSet.of(
+        Capability.OPEN,
+        Capability.CLOSE,
+        Capability.POSITION,
+        Capability.POSITION_LOW_SPEED,
+        Capability.STOP);
+
+    private final SomfyAsyncClient client;
+    private final Map<String, DeviceQueue> deviceQueues = new ConcurrentHashMap<>();
+
+    CommandQueueImpl(SomfyAsyncClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public CompletableFuture<String> submit(Command command, String deviceId) {
+        final QueuedCommand queuedCommand = new QueuedCommand(command);
+
+        // enqueueing and removing idle queues both happen inside compute, so no command can get lost
+        final DeviceQueue deviceQueue = deviceQueues.compute(deviceId, (id, existingQueue) -> {
+            final DeviceQueue queue = existingQueue != null ? existingQueue : new DeviceQueue(id);
+            queue.enqueue(queuedCommand);
+            return queue;
+        });
+        deviceQueue.dispatchNext();
+
+        return queuedCommand.results.get(0);
+    }
+
+    int getQueuedDeviceCount() {
+        return deviceQueues.size();
+    }
+
+    private static boolean isMoving(Command command) {
+        return MOVING_CAPABILITIES.contains(Capability.fromIdentification(command.getName()));
+    }
+
+    /**
+     * The commands of a single device. At most one command per device is in flight at a time.
+     */
+    private final class DeviceQueue {
+
+        private final String deviceId;
+        private final Deque<QueuedCommand> pendingCommands = new ArrayDeque<>();
+        private boolean sending;
+
+        private DeviceQueue(String deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        private synchronized void enqueue(QueuedCommand queuedCommand) {
+            if (isMoving(queuedCommand.command)) {
+                final Iterator<QueuedCommand> pending = pendingCommands.iterator();
+                while (pending.hasNext()) {
+                    final QueuedCommand pendingCommand = pending.next();
+                    if (isMoving(pendingCommand.command)) {
+                        log.debug("Command {} for device {} has been superseded by {}", pendingCommand.command.getName(), deviceId, queuedCommand.command.getName());
+                        queuedCommand.results.addAll(pendingCommand.results);
+                        pending.remove();
+                    }
+                }
+            }
+            pendingCommands.add(queuedCommand);
+        }
+
+        private synchronized boolean isIdle() {
+            return !sending && pendingCommands.isEmpty();
+        }
+
+        private void dispatchNext() {
+            final QueuedCommand next;
+            synchronized (this) {
+                if (sending || pendingCommands.isEmpty()) {
+                    return;
+                }
+                sending = true;
+                next = pendingCommands.poll();
+            }
+
+            final CompletableFuture<String> execution;
+            try {
+                execution = client.executeAsync(next.command, deviceId);
+            } catch (RuntimeException e) {
+                // the queue would stall forever if the command was never completed
+                onSent(next, null, e);
+                return;
+            }
+            execution.whenComplete((jobId, e) -> onSent(next, jobId, e));
+        }
+
+        private void onSent(QueuedCommand sent, String jobId, Throwable e) {
+            sent.complete(jobId, e);
+            synchronized (this) {
+                sending = false;
+            }
+            deviceQueues.computeIfPresent(deviceId, (id, queue) -> queue == this && isIdle() ? null : queue);
+            dispatchNext();
+        }
+    }
+
+    private static final class QueuedCommand {
+
+        private final Command command;
+
+        /**
+         * The result of this command followed by the results of all commands it has superseded.
+         */
+        private final List<CompletableFuture<String>> results = new ArrayList<>(1);
+
+        private QueuedCommand(Command command) {
+            this.command = command;
+            this.results.add(new CompletableFuture<>());
+        }
+
+        private void complete(String jobId, Throwable e) {
+            for (CompletableFuture<String> result : results) {
+                if (e != null) {
+                    result.completeExceptionally(Futures.unwrap(e));
+                } else {
+                    result.complete(jobId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.exception.SomfyApiRequestException;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * Remembers the {@code ETag} and {@code Last-Modified} validators of responses together with the object that has
+ * been parsed from them. Subsequent requests for the same URI are sent with {@code If-None-Match} and
+ * {@code If-Modified-Since}, and if Somfy answers with {@code 304 Not Modified} the previously parsed object is
+ * returned without reading a body. The returned objects are therefore shared between callers.
+ * <p>
+ * At most {@code maxEntries} URIs are remembered, the least recently used ones are evicted first.
+ *
+ * @author Manfred Huber
+ */
+final class ConditionalRequests {
+
+    private final int maxEntries;
+    private final Map<URI, Validators> validatorsByUri;
+
+    ConditionalRequests(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.validatorsByUri = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, Validators> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the validators of the last response for the given {@code uri} or {@code null}.
+     */
+    synchronized Validators validatorsFor(URI uri) {
+        return maxEntries > 0 ? validatorsByUri.get(uri) : null;
+    }
+
+    /**
+     * Adds the conditional headers for the given {@code validators}, if any.
+     */
+    static HttpRequest.Builder conditional(HttpRequest.Builder request, Validators validators) {
+        if (validators != null) {
+            if (validators.etag != null) {
+                request.header("If-None-Match", validators.etag);
+            }
+            if (validators.lastModified != null) {
+                request.header("If-Modified-Since", validators.lastModified);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Returns the object for the given {@code response}. A {@code 304 Not Modified} response resolves to the
+     * object remembered with the {@code validators} the request has been sent with, any other response is parsed
+     * and remembered together with its validators.
+     */
+    @SuppressWarnings("unchecked")
+    <B, T> T resolve(URI uri, Validators validators, HttpResponse<B> response, Function<B, T> parser) {
+        if (response.statusCode() == HTTP_NOT_MODIFIED) {
+            if (validators == null) {
+                throw new SomfyApiRequestException("API answered with Not Modified to an unconditional request", uri, HTTP_NOT_MODIFIED);
+            }
+            return (T) validators.value;
+        }
+
+        final T value = parser.apply(response.body());
+        if (maxEntries > 0) {
+            remember(uri, response.headers(), value);
+        }
+        return value;
+    }
+
+    private synchronized void remember(URI uri, HttpHeaders headers, Object value) {
+        final String etag = headers.firstValue("ETag").orElse(null);
+        final String lastModified = headers.firstValue("Last-Modified").orElse(null);
+        if (etag == null && lastModified == null) {
+            validatorsByUri.remove(uri);
+        } else {
+            validatorsByUri.put(uri, new Validators(etag, lastModified, value));
+        }
+    }
+
+    /**
+     * The validators of a response and the object that has been parsed from it.
+     */
+    static final class Validators {
+
+        private final String etag;
+        private final String lastModified;
+        private final Object value;
+
+        private Validators(String etag, String lastModified, Object value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+    }
+}
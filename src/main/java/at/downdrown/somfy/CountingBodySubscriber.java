@@ -0,0 +1,55 @@
+package at.downdrown.somfy;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link HttpResponse.BodySubscriber} that counts the bytes of the response body
+ * before handing them to the actual subscriber.
+ *
+ * @author Manfred Huber
+ */
+final class CountingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+    private final HttpResponse.BodySubscriber<T> delegate;
+    private final LongConsumer onComplete;
+    private long bytes;
+
+    CountingBodySubscriber(HttpResponse.BodySubscriber<T> delegate, LongConsumer onComplete) {
+        this.delegate = delegate;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public CompletionStage<T> getBody() {
+        return delegate.getBody();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        delegate.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        for (ByteBuffer item : items) {
+            bytes += item.remaining();
+        }
+        delegate.onNext(items);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        onComplete.accept(bytes);
+        delegate.onComplete();
+    }
+}
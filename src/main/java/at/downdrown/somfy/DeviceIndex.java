@@ -0,0 +1,339 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An in-memory index of {@link Device}s that answers queries such as
+ * "all positionable roller shutters under hub X on site Y" without scanning every device:
+ *
+ * <pre>{@code
+ * DeviceIndex index = new DeviceIndex();
+ * index.updateSite(siteId, client.listDevices(siteId));
+ *
+ * List<Device> shutters = index.query()
+ *     .site(siteId)
+ *     .under(hubId)
+ *     .category(Category.ROLLER_SHUTTER)
+ *     .capability(Capability.POSITION)
+ *     .list();
+ * }</pre>
+ * <p>
+ * Every device gets a slot number and every {@link Category}, {@link DeviceType}, {@link Capability}, site and
+ * parent keeps a {@link BitSet} of the slots of its devices, so a query is the intersection of a few bit sets.
+ * The index is updated incrementally whenever single devices have been fetched again. It is thread safe.
+ *
+ * @author Manfred Huber
+ */
+public final class DeviceIndex {
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final Map<String, Integer> slotsByDeviceId = new HashMap<>();
+    private final BitSet occupiedSlots = new BitSet();
+    private final BitSet[] slotsByCategory = newPostings(Category.values().length);
+    private final BitSet[] slotsByType = newPostings(DeviceType.values().length);
+    private final BitSet[] slotsByCapability = newPostings(Capability.values().length);
+    private final BitSet availableSlots = new BitSet();
+    private final Map<String, BitSet> slotsBySiteId = new HashMap<>();
+    private final Map<String, BitSet> slotsByParentId = new HashMap<>();
+    private Device[] devices = new Device[16];
+
+    private static BitSet[] newPostings(int length) {
+        final BitSet[] postings = new BitSet[length];
+        Arrays.setAll(postings, i -> new BitSet());
+        return postings;
+    }
+
+    /**
+     * Adds the given {@code device} or replaces the indexed device with the same ID.
+     */
+    public synchronized void update(Device device) {
+        Objects.requireNonNull(device.getId(), "No device ID present.");
+        final Integer existingSlot = slotsByDeviceId.get(device.getId());
+        final int slot;
+        if (existingSlot != null) {
+            slot = existingSlot;
+            unindex(slot);
+        } else {
+            slot = occupiedSlots.nextClearBit(0);
+            slotsByDeviceId.put(device.getId(), slot);
+            occupiedSlots.set(slot);
+            if (slot >= devices.length) {
+                devices = Arrays.copyOf(devices, devices.length * 2);
+            }
+        }
+        index(slot, device);
+    }
+
+    /**
+     * Adds or replaces all given {@code devices}.
+     */
+    public synchronized void updateAll(Collection<Device> devices) {
+        devices.forEach(this::update);
+    }
+
+    /**
+     * Replaces all devices of the {@link at.downdrown.somfy.domain.Site} with the given {@code siteId},
+     * e.g. with the result of {@link SomfyClient#listDevices(String)}. Devices that are no longer listed are removed.
+     */
+    public synchronized void updateSite(String siteId, Collection<Device> devices) {
+        final BitSet siteSlots = slotsBySiteId.get(siteId);
+        if (siteSlots != null) {
+            final Set<String> listedDeviceIds = new HashSet<>();
+            devices.forEach(device -> listedDeviceIds.add(device.getId()));
+            for (String deviceId : idsOf((BitSet) siteSlots.clone())) {
+                if (!listedDeviceIds.contains(deviceId)) {
+                    remove(deviceId);
+                }
+            }
+        }
+        updateAll(devices);
+    }
+
+    /**
+     * Removes the device with the given {@code deviceId}.
+     *
+     * @return whether the device has been indexed.
+     */
+    public synchronized boolean remove(String deviceId) {
+        final Integer slot = slotsByDeviceId.remove(deviceId);
+        if (slot == null) {
+            return false;
+        }
+        unindex(slot);
+        occupiedSlots.clear(slot);
+        return true;
+    }
+
+    /**
+     * @return the indexed device with the given {@code deviceId} or {@code null}.
+     */
+    public synchronized Device get(String deviceId) {
+        final Integer slot = slotsByDeviceId.get(deviceId);
+        return slot != null ? devices[slot] : null;
+    }
+
+    /**
+     * @return the number of indexed devices.
+     */
+    public synchronized int size() {
+        return slotsByDeviceId.size();
+    }
+
+    /**
+     * Starts a query that matches devices fulfilling all of its conditions.
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private void index(int slot, Device device) {
+        devices[slot] = device;
+        if (device.getCategories() != null) {
+            device.getCategories().forEach(category -> slotsByCategory[category.ordinal()].set(slot));
+        }
+        if (device.getType() != null) {
+            slotsByType[device.getType().ordinal()].set(slot);
+        }
+        // devices that do not list their capabilities have those of their type
+        final Set<Capability> capabilities = device.getCapabilities() != null || device.getType() == null
+            ? device.getCapabilities()
+            : device.getType().getCapabilities();
+        if (capabilities != null) {
+            capabilities.forEach(capability -> slotsByCapability[capability.ordinal()].set(slot));
+        }
+        if (device.isAvailable()) {
+            availableSlots.set(slot);
+        }
+        if (device.getSiteId() != null) {
+            slotsBySiteId.computeIfAbsent(device.getSiteId(), siteId -> new BitSet()).set(slot);
+        }
+        if (device.getParentId() != null) {
+            slotsByParentId.computeIfAbsent(device.getParentId(), parentId -> new BitSet()).set(slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        final Device device = devices[slot];
+        devices[slot] = null;
+        for (BitSet slots : slotsByCategory) {
+            slots.clear(slot);
+        }
+        for (BitSet slots : slotsByType) {
+            slots.clear(slot);
+        }
+        for (BitSet slots : slotsByCapability) {
+            slots.clear(slot);
+        }
+        availableSlots.clear(slot);
+        clear(slotsBySiteId, device.getSiteId(), slot);
+        clear(slotsByParentId, device.getParentId(), slot);
+    }
+
+    private static void clear(Map<String, BitSet> postings, String key, int slot) {
+        if (key == null) {
+            return;
+        }
+        final BitSet slots = postings.get(key);
+        if (slots != null) {
+            slots.clear(slot);
+            if (slots.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private List<String> idsOf(BitSet slots) {
+        final List<String> ids = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            ids.add(devices[slot].getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Collects the slots of all direct and indirect children of the device with the given {@code parentId}.
+     */
+    private BitSet descendantsOf(String parentId) {
+        final BitSet descendants = new BitSet();
+        final Deque<String> parentIds = new ArrayDeque<>();
+        parentIds.add(parentId);
+        while (!parentIds.isEmpty()) {
+            final BitSet children = slotsByParentId.get(parentIds.poll());
+            if (children == null) {
+                continue;
+            }
+            for (int slot = children.nextSetBit(0); slot >= 0; slot = children.nextSetBit(slot + 1)) {
+                // guards against cycles in the hierarchy
+                if (!descendants.get(slot)) {
+                    descendants.set(slot);
+                    parentIds.add(devices[slot].getId());
+                }
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * A conjunctive query, all conditions have to be fulfilled by a matching device.
+     */
+    public final class Query {
+
+        private final List<Category> categories = new ArrayList<>(2);
+        private final List<DeviceType> types = new ArrayList<>(2);
+        private final List<Capability> capabilities = new ArrayList<>(2);
+        private final List<String> siteIds = new ArrayList<>(1);
+        private final List<String> parentIds = new ArrayList<>(1);
+        private final List<String> ancestorIds = new ArrayList<>(1);
+        private boolean available;
+
+        private Query() {
+        }
+
+        public Query category(Category category) {
+            categories.add(Objects.requireNonNull(category, "No category present."));
+            return this;
+        }
+
+        public Query type(DeviceType type) {
+            types.add(Objects.requireNonNull(type, "No type present."));
+            return this;
+        }
+
+        public Query capability(Capability capability) {
+            capabilities.add(Objects.requireNonNull(capability, "No capability present."));
+            return this;
+        }
+
+        public Query site(String siteId) {
+            siteIds.add(Objects.requireNonNull(siteId, "No siteId present."));
+            return this;
+        }
+
+        /**
+         * Matches the direct children of the device with the given {@code parentId}.
+         */
+        public Query parent(String parentId) {
+            parentIds.add(Objects.requireNonNull(parentId, "No parentId present."));
+            return this;
+        }
+
+        /**
+         * Matches the direct and indirect children of the device with the given {@code ancestorId}, e.g. a hub.
+         */
+        public Query under(String ancestorId) {
+            ancestorIds.add(Objects.requireNonNull(ancestorId, "No ancestorId present."));
+            return this;
+        }
+
+        /**
+         * Matches available devices only.
+         */
+        public Query available() {
+            available = true;
+            return this;
+        }
+
+        /**
+         * @return the matching devices, ordered by the time they have been indexed first.
+         */
+        public List<Device> list() {
+            synchronized (DeviceIndex.this) {
+                final BitSet slots = match();
+                final List<Device> matches = new ArrayList<>(slots.cardinality());
+                for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                    matches.add(devices[slot]);
+                }
+                return matches;
+            }
+        }
+
+        /**
+         * @return the IDs of the matching devices.
+         */
+        public List<String> ids() {
+            synchronized (DeviceIndex.this) {
+                return idsOf(match());
+            }
+        }
+
+        /**
+         * @return the number of matching devices.
+         */
+        public int count() {
+            synchronized (DeviceIndex.this) {
+                return match().cardinality();
+            }
+        }
+
+        private BitSet match() {
+            final BitSet slots = (BitSet) occupiedSlots.clone();
+            categories.forEach(category -> slots.and(slotsByCategory[category.ordinal()]));
+            types.forEach(type -> slots.and(slotsByType[type.ordinal()]));
+            capabilities.forEach(capability -> slots.and(slotsByCapability[capability.ordinal()]));
+            siteIds.forEach(siteId -> slots.and(slotsBySiteId.getOrDefault(siteId, EMPTY)));
+            parentIds.forEach(parentId -> slots.and(slotsByParentId.getOrDefault(parentId, EMPTY)));
+            ancestorIds.forEach(ancestorId -> slots.and(descendantsOf(ancestorId)));
+            if (available) {
+                slots.and(availableSlots);
+            }
+            return slots;
+        }
+    }
+}
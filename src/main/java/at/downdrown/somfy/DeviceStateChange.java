@@ -0,0 +1,31 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.State;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A changed {@link State} of a {@link at.downdrown.somfy.domain.Device}, as published by a {@link DeviceStatePoller}.
+ *
+ * @author Manfred Huber
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public final class DeviceStateChange {
+
+    private final String siteId;
+    private final String deviceId;
+
+    /**
+     * The previously known state or {@code null} if the state has not been known before.
+     */
+    private final State previousState;
+
+    /**
+     * The current state or {@code null} if the state has been removed, also if its device is no longer listed.
+     */
+    private final State state;
+
+}
@@ -0,0 +1,68 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyPollingProperties;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Polls the {@link at.downdrown.somfy.domain.Device}s of {@link at.downdrown.somfy.domain.Site}s and publishes
+ * every {@link at.downdrown.somfy.domain.State} that has changed since the previous poll to its subscribers.
+ * <p>
+ * The first poll of a site only records the current states, so subscribers are notified about changes only.
+ * States that disappear, also those of devices that are no longer listed, are published with a {@code null}
+ * {@link DeviceStateChange#getState() state}.
+ * Sites are polled in a slow interval while idle and in a fast interval shortly after a command has been
+ * executed or a change has been observed, see {@link SomfyPollingProperties}.
+ *
+ * @author Manfred Huber
+ * @see SomfyPollingProperties
+ */
+public interface DeviceStatePoller extends Flow.Publisher<DeviceStateChange>, AutoCloseable {
+
+    static DeviceStatePoller newPoller(SomfyAsyncClient client) {
+        return newPoller(client, SomfyPollingProperties.builder().build());
+    }
+
+    static DeviceStatePoller newPoller(SomfyAsyncClient client, SomfyPollingProperties pollingProperties) {
+        return newPoller(client, pollingProperties, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the polls and delivers the changes to the subscribers.
+     */
+    static DeviceStatePoller newPoller(SomfyAsyncClient client, SomfyPollingProperties pollingProperties, Executor executor) {
+        return new DeviceStatePollerImpl(client, pollingProperties, System::nanoTime, executor);
+    }
+
+    /**
+     * Starts polling the devices of the site with the given {@code siteId}.
+     * Does nothing if the site is already being polled.
+     *
+     * @param siteId the ID of the site that should be polled.
+     */
+    void poll(String siteId);
+
+    /**
+     * Stops polling the devices of the site with the given {@code siteId}.
+     *
+     * @param siteId the ID of the site that should no longer be polled.
+     */
+    void stopPolling(String siteId);
+
+    /**
+     * Tells the poller that a command has been executed for the device with the given {@code deviceId},
+     * so that its site is polled in the fast interval for a while.
+     *
+     * @param deviceId the ID of the device for which a command has been executed.
+     */
+    void onExecuted(String deviceId);
+
+    /**
+     * Stops polling all sites and completes all subscribers.
+     */
+    @Override
+    void close();
+
+}
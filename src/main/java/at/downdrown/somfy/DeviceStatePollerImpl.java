@@ -0,0 +1,240 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyPollingProperties;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceStates;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+@Slf4j(topic = "somfyclient")
+final class DeviceStatePollerImpl implements DeviceStatePoller {
+
+    private final SomfyAsyncClient client;
+    private final SomfyPollingProperties pollingProperties;
+    private final LongSupplier nanoClock;
+    private final Executor executor;
+    private final SubmissionPublisher<DeviceStateChange> publisher;
+    private final Map<String, SitePoll> sitePolls = new ConcurrentHashMap<>();
+    private final Map<String, String> siteIdsByDeviceId = new ConcurrentHashMap<>();
+
+    DeviceStatePollerImpl(SomfyAsyncClient client, SomfyPollingProperties pollingProperties, LongSupplier nanoClock, Executor executor) {
+        this.client = client;
+        this.pollingProperties = pollingProperties;
+        this.nanoClock = nanoClock;
+        this.executor = executor;
+        this.publisher = new SubmissionPublisher<>(executor, Flow.defaultBufferSize());
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super DeviceStateChange> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void poll(String siteId) {
+        if (publisher.isClosed()) {
+            throw new IllegalStateException("Poller has been closed");
+        }
+        final SitePoll sitePoll = new SitePoll(siteId);
+        if (sitePolls.putIfAbsent(siteId, sitePoll) == null) {
+            sitePoll.schedule(Duration.ZERO);
+        }
+    }
+
+    @Override
+    public void stopPolling(String siteId) {
+        final SitePoll sitePoll = sitePolls.remove(siteId);
+        if (sitePoll != null) {
+            sitePoll.cancel();
+        }
+    }
+
+    @Override
+    public void onExecuted(String deviceId) {
+        final String siteId = siteIdsByDeviceId.get(deviceId);
+        if (siteId == null) {
+            // the device has not been seen yet, so we don't know which site it belongs to
+            sitePolls.values().forEach(SitePoll::accelerate);
+        } else if (sitePolls.containsKey(siteId)) {
+            sitePolls.get(siteId).accelerate();
+        }
+    }
+
+    @Override
+    public void close() {
+        sitePolls.values().forEach(SitePoll::cancel);
+        sitePolls.clear();
+        publisher.close();
+    }
+
+    /**
+     * Returns the interval in which the site with the given {@code siteId} is currently polled.
+     */
+    Duration getInterval(String siteId) {
+        final SitePoll sitePoll = sitePolls.get(siteId);
+        return sitePoll != null ? sitePoll.getInterval() : null;
+    }
+
+    /**
+     * The polling loop of a single site. At most one poll per site is in flight at a time.
+     */
+    private final class SitePoll {
+
+        private final String siteId;
+        private Map<String, DeviceStates> statesByDeviceId;
+        private Duration interval = pollingProperties.getIdleInterval();
+        private long activeUntilNanos = nanoClock.getAsLong();
+        private CompletableFuture<Void> scheduledPoll;
+        private boolean polling;
+        private boolean cancelled;
+
+        private SitePoll(String siteId) {
+            this.siteId = siteId;
+        }
+
+        private synchronized Duration getInterval() {
+            return interval;
+        }
+
+        private synchronized void accelerate() {
+            interval = pollingProperties.getActiveInterval();
+            activeUntilNanos = nanoClock.getAsLong() + pollingProperties.getActivePeriod().toNanos();
+            if (!polling) {
+                schedule(interval);
+            }
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (scheduledPoll != null) {
+                scheduledPoll.cancel(false);
+            }
+        }
+
+        private synchronized void schedule(Duration delay) {
+            if (cancelled) {
+                return;
+            }
+            if (scheduledPoll != null) {
+                scheduledPoll.cancel(false);
+            }
+            scheduledPoll = CompletableFuture.runAsync(this::poll,
+                CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor));
+        }
+
+        private void poll() {
+            synchronized (this) {
+                if (cancelled || polling) {
+                    return;
+                }
+                polling = true;
+            }
+
+            client.listDevicesAsync(siteId).whenComplete((devices, e) -> {
+                synchronized (this) {
+                    polling = false;
+                    boolean changed = false;
+                    if (e != null) {
+                        log.warn("Could not poll devices of site {}", siteId, Futures.unwrap(e));
+                    } else {
+                        changed = publishChanges(devices);
+                    }
+                    schedule(nextInterval(changed));
+                }
+            });
+        }
+
+        /**
+         * Publishes all states that differ from the previous poll and remembers the current states.
+         * States that are no longer listed, also those of devices that are no longer listed, are published as removed.
+         *
+         * @return whether any state has changed.
+         */
+        private boolean publishChanges(List<Device> devices) {
+            final Map<String, DeviceStates> currentStatesByDeviceId = new HashMap<>();
+            boolean changed = false;
+
+            for (Device device : devices) {
+                siteIdsByDeviceId.put(device.getId(), siteId);
+
+                final DeviceStates currentStates = device.getDeviceStates();
+                currentStatesByDeviceId.put(device.getId(), currentStates);
+
+                // the first poll only records the initial states
+                if (statesByDeviceId == null) {
+                    continue;
+                }
+
+                // states are compared without boxing, only changed states are converted for publishing
+                final DeviceStates previousStates = statesByDeviceId.getOrDefault(device.getId(), DeviceStates.empty());
+                for (int i = 0; i < currentStates.size(); i++) {
+                    final String name = currentStates.getName(i);
+                    if (!currentStates.hasSameValue(name, previousStates)) {
+                        changed = true;
+                        publish(new DeviceStateChange(siteId, device.getId(), previousStates.getState(name), currentStates.getState(name)));
+                    }
+                }
+                changed |= publishRemovals(device.getId(), previousStates, currentStates);
+            }
+
+            if (statesByDeviceId != null) {
+                for (Map.Entry<String, DeviceStates> previous : statesByDeviceId.entrySet()) {
+                    if (!currentStatesByDeviceId.containsKey(previous.getKey())) {
+                        siteIdsByDeviceId.remove(previous.getKey(), siteId);
+                        changed |= publishRemovals(previous.getKey(), previous.getValue(), DeviceStates.empty());
+                    }
+                }
+            }
+
+            statesByDeviceId = currentStatesByDeviceId;
+            return changed;
+        }
+
+        private boolean publishRemovals(String deviceId, DeviceStates previousStates, DeviceStates currentStates) {
+            boolean removed = false;
+            for (int i = 0; i < previousStates.size(); i++) {
+                final String name = previousStates.getName(i);
+                if (!currentStates.contains(name)) {
+                    removed = true;
+                    publish(new DeviceStateChange(siteId, deviceId, previousStates.getState(name), null));
+                }
+            }
+            return removed;
+        }
+
+        private void publish(DeviceStateChange change) {
+            publisher.offer(change, (subscriber, droppedChange) -> {
+                log.warn("Dropping state change {} for a subscriber that does not keep up", droppedChange);
+                return false;
+            });
+        }
+
+        private Duration nextInterval(boolean changed) {
+            final long now = nanoClock.getAsLong();
+            if (changed) {
+                activeUntilNanos = now + pollingProperties.getActivePeriod().toNanos();
+            }
+
+            if (now - activeUntilNanos < 0) {
+                interval = pollingProperties.getActiveInterval();
+            } else {
+                final Duration slowerInterval = interval.multipliedBy(2);
+                interval = slowerInterval.compareTo(pollingProperties.getIdleInterval()) < 0
+                    ? slowerInterval
+                    : pollingProperties.getIdleInterval();
+            }
+            return interval;
+        }
+    }
+}
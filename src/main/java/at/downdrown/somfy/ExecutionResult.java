@@ -0,0 +1,34 @@
+package at.downdrown.somfy;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of executing a {@link at.downdrown.somfy.domain.Command} for a single device.
+ * Either holds the {@code jobId} of the execution or the reason why it failed.
+ *
+ * @author Manfred Huber
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+@ToString
+public final class ExecutionResult {
+
+    private final String jobId;
+    private final Throwable failure;
+
+    public static ExecutionResult succeeded(String jobId) {
+        return new ExecutionResult(jobId, null);
+    }
+
+    public static ExecutionResult failed(Throwable failure) {
+        return new ExecutionResult(null, failure);
+    }
+
+    public boolean isSuccessful() {
+        return failure == null;
+    }
+
+}
@@ -0,0 +1,77 @@
+package at.downdrown.somfy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * A {@link TokenStore} that keeps the token as properties file.
+ * <p>
+ * The token is written to a temporary file in the same directory first, which is then renamed to the
+ * actual file. The rename is atomic, so concurrent readers either see the old or the new token.
+ *
+ * @author Manfred Huber
+ */
+final class FileTokenStore implements TokenStore {
+
+    private static final String ISSUED_AT = "issuedAt";
+    private static final String ACCESS_TOKEN = "accessToken";
+    private static final String REFRESH_TOKEN = "refreshToken";
+    private static final String ACCESS_TOKEN_EXPIRES_AT = "accessTokenExpiresAt";
+
+    private final Path path;
+
+    FileTokenStore(Path path) {
+        this.path = Objects.requireNonNull(path, "No path present.").toAbsolutePath();
+    }
+
+    @Override
+    public Optional<SomfyToken> load() {
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read token from " + path, e);
+        }
+
+        try {
+            return Optional.of(new SomfyToken(
+                LocalDateTime.parse(properties.getProperty(ISSUED_AT)),
+                Objects.requireNonNull(properties.getProperty(ACCESS_TOKEN), ACCESS_TOKEN),
+                Objects.requireNonNull(properties.getProperty(REFRESH_TOKEN), REFRESH_TOKEN),
+                LocalDateTime.parse(properties.getProperty(ACCESS_TOKEN_EXPIRES_AT))));
+        } catch (NullPointerException | DateTimeParseException e) {
+            throw new UncheckedIOException(new IOException("Malformed token file " + path, e));
+        }
+    }
+
+    @Override
+    public synchronized void store(SomfyToken token) {
+        final Properties properties = new Properties();
+        properties.setProperty(ISSUED_AT, token.getIssuedAt().toString());
+        properties.setProperty(ACCESS_TOKEN, token.getAccessToken());
+        properties.setProperty(REFRESH_TOKEN, token.getRefreshToken());
+        properties.setProperty(ACCESS_TOKEN_EXPIRES_AT, token.getAccessTokenExpiresAt().toString());
+
+        try {
+            final StringWriter content = new StringWriter();
+            properties.store(content, "Somfy Open API token");
+            AtomicFiles.write(path, ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write token to " + path, e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Utility class for bridging {@link CompletableFuture}s and the blocking client API.
+ *
+ * @author Manfred Huber
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Futures {
+
+    /**
+     * Removes the {@link CompletionException} wrapper that {@link CompletableFuture} puts around failures.
+     *
+     * @param throwable the failure of a {@link CompletableFuture}.
+     * @return the actual cause of the failure.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Waits for the given {@link CompletableFuture} and rethrows its failure as it was thrown by the blocking API.
+     *
+     * @param future the future to wait for.
+     * @return the result of the future.
+     */
+    public static <T> T await(CompletableFuture<T> future) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SomfyTokenFetchException("Interrupted while waiting for Somfy", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = unwrap(e.getCause());
+            if (cause instanceof SomfyTokenFetchException) {
+                throw (SomfyTokenFetchException) cause;
+            }
+            if (cause instanceof SomfyTokenExpiredException) {
+                throw (SomfyTokenExpiredException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
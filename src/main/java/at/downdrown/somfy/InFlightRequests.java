@@ -0,0 +1,94 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical reading requests that are in flight at the same time.
+ * The first caller sends the request, all callers that ask for the same key while
+ * the request is still running wait for it and receive the same result.
+ *
+ * @author Manfred Huber
+ */
+@Slf4j(topic = "somfyclient")
+final class InFlightRequests {
+
+    private final ConcurrentMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    InFlightRequests(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Runs the given blocking {@code request} unless an identical one is already in flight.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T coalesce(String key, Request<T> request) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        if (!enabled) {
+            return request.send();
+        }
+
+        final CompletableFuture<T> leader = new CompletableFuture<>();
+        final CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            log.debug("Joining in-flight request {}", key);
+            return Futures.await(existing);
+        }
+
+        try {
+            final T result = request.send();
+            complete(key, leader, result, null);
+            return result;
+        } catch (SomfyTokenFetchException | SomfyTokenExpiredException | RuntimeException e) {
+            complete(key, leader, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the given non-blocking {@code request} unless an identical one is already in flight.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> coalesceAsync(String key, Supplier<CompletableFuture<T>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+
+        final CompletableFuture<T> leader = new CompletableFuture<>();
+        final CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            log.debug("Joining in-flight request {}", key);
+            return existing.copy();
+        }
+
+        try {
+            request.get().whenComplete((result, e) -> complete(key, leader, result, e));
+        } catch (RuntimeException e) {
+            complete(key, leader, null, e);
+        }
+        return leader.copy();
+    }
+
+    private <T> void complete(String key, CompletableFuture<T> leader, T result, Throwable e) {
+        inFlight.remove(key, leader);
+        if (e != null) {
+            leader.completeExceptionally(Futures.unwrap(e));
+        } else {
+            leader.complete(result);
+        }
+    }
+
+    @FunctionalInterface
+    interface Request<T> {
+
+        T send() throws SomfyTokenFetchException, SomfyTokenExpiredException;
+
+    }
+}
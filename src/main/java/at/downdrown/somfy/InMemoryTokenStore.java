@@ -0,0 +1,25 @@
+package at.downdrown.somfy;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link TokenStore} that only keeps the token in memory.
+ *
+ * @author Manfred Huber
+ */
+final class InMemoryTokenStore implements TokenStore {
+
+    private final AtomicReference<SomfyToken> token = new AtomicReference<>();
+
+    @Override
+    public Optional<SomfyToken> load() {
+        return Optional.ofNullable(token.get());
+    }
+
+    @Override
+    public void store(SomfyToken token) {
+        this.token.set(Objects.requireNonNull(token, "No token present."));
+    }
+}
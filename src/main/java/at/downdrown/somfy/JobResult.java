@@ -0,0 +1,36 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+
+/**
+ * The final outcome of a job that has been created by executing a {@link at.downdrown.somfy.domain.Command}.
+ *
+ * @author Manfred Huber
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+public final class JobResult {
+
+    private final String jobId;
+
+    /**
+     * The terminal status of the job.
+     */
+    private final JobStatus status;
+
+    /**
+     * The time from starting to track the job until its terminal status has been observed.
+     */
+    private final Duration duration;
+
+    public boolean isSuccessful() {
+        return status == JobStatus.COMPLETED;
+    }
+
+}
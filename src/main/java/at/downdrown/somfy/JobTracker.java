@@ -0,0 +1,149 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Job;
+import at.downdrown.somfy.domain.JobStatus;
+import at.downdrown.somfy.exception.SomfyApiRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static java.net.HttpURLConnection.HTTP_CLIENT_TIMEOUT;
+
+/**
+ * Tracks outstanding jobs until they reach a terminal status.
+ * <p>
+ * Instead of polling every job on its own, a single sweep polls the status of all outstanding jobs
+ * every {@code pollInterval} and the next sweep is only scheduled once the previous one has completed.
+ * No thread is blocked while waiting and no sweep is scheduled while no job is tracked.
+ * A job with a status that is not known to this library, or whose status cannot be requested because of a client
+ * error like {@code 404 Not Found}, fails right away instead of being polled until it times out.
+ *
+ * @author Manfred Huber
+ */
+@Slf4j(topic = "somfyclient")
+final class JobTracker {
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final Function<String, CompletableFuture<Job>> jobLookup;
+    private final Duration pollInterval;
+    private final Duration timeout;
+    private final LongSupplier nanoClock;
+    private final Executor executor;
+    private final Map<String, TrackedJob> trackedJobs = new ConcurrentHashMap<>();
+
+    private boolean sweepScheduled;
+
+    JobTracker(Function<String, CompletableFuture<Job>> jobLookup, Duration pollInterval, Duration timeout, LongSupplier nanoClock, Executor executor) {
+        this.jobLookup = jobLookup;
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+        this.nanoClock = nanoClock;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns a future that completes once the job with the given {@code jobId} has reached a terminal status.
+     * The future completes exceptionally with a {@link TimeoutException} if the job did not finish in time.
+     * Cancelling the future stops tracking the job.
+     */
+    CompletableFuture<JobResult> track(String jobId) {
+        final TrackedJob trackedJob = trackedJobs.computeIfAbsent(jobId, id -> {
+            final TrackedJob newJob = new TrackedJob(id, nanoClock.getAsLong());
+            newJob.result.whenComplete((jobResult, e) -> trackedJobs.remove(id, newJob));
+            return newJob;
+        });
+        scheduleSweep();
+        return trackedJob.result;
+    }
+
+    int getTrackedJobCount() {
+        return trackedJobs.size();
+    }
+
+    private synchronized void scheduleSweep() {
+        if (sweepScheduled || trackedJobs.isEmpty()) {
+            return;
+        }
+        sweepScheduled = true;
+        CompletableFuture.runAsync(this::sweep, CompletableFuture.delayedExecutor(pollInterval.toNanos(), TimeUnit.NANOSECONDS, executor));
+    }
+
+    private void sweep() {
+        final List<TrackedJob> outstandingJobs = List.copyOf(trackedJobs.values());
+        log.debug("Polling the status of {} outstanding job(s)", outstandingJobs.size());
+
+        final CompletableFuture<?>[] polls = new CompletableFuture<?>[outstandingJobs.size()];
+        for (int i = 0; i < polls.length; i++) {
+            final TrackedJob trackedJob = outstandingJobs.get(i);
+            polls[i] = jobLookup.apply(trackedJob.jobId)
+                .handle((job, e) -> {
+                    update(trackedJob, job, e);
+                    return null;
+                });
+        }
+
+        CompletableFuture.allOf(polls).whenComplete((ignored, e) -> {
+            synchronized (this) {
+                sweepScheduled = false;
+            }
+            scheduleSweep();
+        });
+    }
+
+    private void update(TrackedJob trackedJob, Job job, Throwable e) {
+        final long elapsedNanos = nanoClock.getAsLong() - trackedJob.startNanos;
+        if (e != null && isPermanentFailure(Futures.unwrap(e))) {
+            trackedJob.result.completeExceptionally(Futures.unwrap(e));
+            return;
+        } else if (e != null) {
+            log.warn("Could not poll the status of job {}, polling again", trackedJob.jobId, Futures.unwrap(e));
+        } else if (job != null && job.getStatus() == JobStatus.UNKNOWN) {
+            // polling until the timeout is pointless, the status may never be recognised as terminal
+            log.warn("Job {} has an unknown status, giving up waiting for it", trackedJob.jobId);
+            trackedJob.result.completeExceptionally(
+                new IllegalStateException("Job " + trackedJob.jobId + " has an unknown status"));
+            return;
+        } else if (job != null && job.getStatus() != null && job.getStatus().isTerminal()) {
+            trackedJob.result.complete(new JobResult(trackedJob.jobId, job.getStatus(), Duration.ofNanos(elapsedNanos)));
+            return;
+        }
+
+        if (elapsedNanos >= timeout.toNanos()) {
+            trackedJob.result.completeExceptionally(
+                new TimeoutException("Job " + trackedJob.jobId + " did not finish within " + timeout));
+        }
+    }
+
+    /**
+     * Client errors other than timeouts and throttling will not go away when polling again.
+     */
+    private static boolean isPermanentFailure(Throwable e) {
+        if (!(e instanceof SomfyApiRequestException)) {
+            return false;
+        }
+        final int httpStatus = ((SomfyApiRequestException) e).getHttpStatus();
+        return httpStatus >= 400 && httpStatus < 500 && httpStatus != HTTP_CLIENT_TIMEOUT && httpStatus != HTTP_TOO_MANY_REQUESTS;
+    }
+
+    private static final class TrackedJob {
+
+        private final String jobId;
+        private final long startNanos;
+        private final CompletableFuture<JobResult> result = new CompletableFuture<>();
+
+        private TrackedJob(String jobId, long startNanos) {
+            this.jobId = jobId;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -2,15 +2,29 @@ package at.downdrown.somfy;
 
 import at.downdrown.somfy.domain.Capability;
 import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.DeviceStates;
 import at.downdrown.somfy.domain.DeviceType;
-import at.downdrown.somfy.gson.CapabilityDeserializer;
-import at.downdrown.somfy.gson.CategoryDeserializer;
-import at.downdrown.somfy.gson.DeviceTypeDeserializer;
+import at.downdrown.somfy.domain.JobStatus;
+import at.downdrown.somfy.gson.CapabilityTypeAdapter;
+import at.downdrown.somfy.gson.CategoryTypeAdapter;
+import at.downdrown.somfy.gson.DeviceStatesTypeAdapter;
+import at.downdrown.somfy.gson.DeviceTypeTypeAdapter;
+import at.downdrown.somfy.gson.JobStatusTypeAdapter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonReader;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 final class Json {
 
@@ -24,12 +38,60 @@ final class Json {
         return gson.fromJson(json, type);
     }
 
+    public static <T> T fromJson(Reader json, Class<T> type) {
+        return gson.fromJson(json, type);
+    }
+
+    /**
+     * Lazily reads the elements of a JSON array from the given {@link JsonReader}.
+     * Only the element that is currently processed is held in memory.
+     * Closing the returned {@link Stream} closes the {@link JsonReader}.
+     *
+     * @param reader the {@link JsonReader} positioned in front of a JSON array.
+     * @param type   the type of the array elements.
+     * @return a sequential {@link Stream} of the array elements.
+     */
+    public static <T> Stream<T> streamArray(JsonReader reader, Class<T> type) {
+        final Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private boolean started;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!started) {
+                        reader.beginArray();
+                        started = true;
+                    }
+                    if (!reader.hasNext()) {
+                        return false;
+                    }
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+                action.accept(gson.fromJson(reader, type));
+                return true;
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+            .onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+            });
+    }
+
     private static Gson newGson() {
 
         GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(Capability.class, new CapabilityDeserializer());
-        gsonBuilder.registerTypeAdapter(Category.class, new CategoryDeserializer());
-        gsonBuilder.registerTypeAdapter(DeviceType.class, new DeviceTypeDeserializer());
+        gsonBuilder.registerTypeAdapter(Capability.class, new CapabilityTypeAdapter());
+        gsonBuilder.registerTypeAdapter(Category.class, new CategoryTypeAdapter());
+        gsonBuilder.registerTypeAdapter(DeviceType.class, new DeviceTypeTypeAdapter());
+        gsonBuilder.registerTypeAdapter(DeviceStates.class, new DeviceStatesTypeAdapter());
+        gsonBuilder.registerTypeAdapter(JobStatus.class, new JobStatusTypeAdapter());
 
         return gsonBuilder.create();
     }
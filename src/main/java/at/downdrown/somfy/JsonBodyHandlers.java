@@ -0,0 +1,139 @@
+package at.downdrown.somfy;
+
+import com.google.gson.stream.JsonReader;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+
+/**
+ * {@link HttpResponse.BodyHandler}s that hand the response body to Gson without
+ * buffering it into a {@link String} first.
+ * <p>
+ * Bodies with a {@code Content-Encoding} of {@code gzip} or {@code deflate} are decompressed while Gson reads them,
+ * so the decompressed body is never held in memory as a whole.
+ *
+ * @author Manfred Huber
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class JsonBodyHandlers {
+
+    /**
+     * The value of the {@code Accept-Encoding} header for requests whose response is read by these handlers.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /**
+     * Creates a {@link HttpResponse.BodyHandler} that exposes the response body as {@link JsonReader}
+     * reading directly from the underlying {@link java.io.InputStream}.
+     * The body of unsuccessful responses is discarded and {@code null} is returned instead.
+     * The caller is responsible for closing the returned {@link JsonReader}.
+     *
+     * @return the {@link HttpResponse.BodyHandler}.
+     */
+    public static HttpResponse.BodyHandler<JsonReader> ofJsonReader() {
+        return responseInfo -> {
+            if (responseInfo.statusCode() != HTTP_OK) {
+                return HttpResponse.BodySubscribers.replacing(null);
+            }
+            final String contentEncoding = contentEncoding(responseInfo);
+            return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(),
+                inputStream -> new JsonReader(new InputStreamReader(new DecodingInputStream(inputStream, contentEncoding), StandardCharsets.UTF_8)));
+        };
+    }
+
+    /**
+     * Creates a {@link HttpResponse.BodyHandler} that receives the whole, possibly compressed response body
+     * and exposes it as {@link Reader} that decompresses it while being read.
+     * Unlike {@link #ofJsonReader()}, the returned future only completes once the body has been received,
+     * so reading it never blocks.
+     * The body of unsuccessful responses is discarded and {@code null} is returned instead.
+     *
+     * @return the {@link HttpResponse.BodyHandler}.
+     */
+    public static HttpResponse.BodyHandler<Reader> ofDecodingReader() {
+        return responseInfo -> {
+            if (responseInfo.statusCode() != HTTP_OK) {
+                return HttpResponse.BodySubscribers.replacing(null);
+            }
+            final String contentEncoding = contentEncoding(responseInfo);
+            return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofByteArray(),
+                body -> new InputStreamReader(new DecodingInputStream(new ByteArrayInputStream(body), contentEncoding), StandardCharsets.UTF_8));
+        };
+    }
+
+    private static String contentEncoding(HttpResponse.ResponseInfo responseInfo) {
+        return responseInfo.headers().firstValue("Content-Encoding")
+            .map(contentEncoding -> contentEncoding.trim().toLowerCase(Locale.ROOT))
+            .orElse("identity");
+    }
+
+    /**
+     * Decompresses the underlying stream according to its {@code Content-Encoding}.
+     * The decompressing stream is only created on the first read, as a {@link GZIPInputStream} reads the
+     * gzip header right away, which must not happen on the thread that maps the body.
+     */
+    private static final class DecodingInputStream extends InputStream {
+
+        private final InputStream body;
+        private final String contentEncoding;
+        private InputStream decoded;
+
+        private DecodingInputStream(InputStream body, String contentEncoding) {
+            this.body = body;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return decoded().read(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decoded != null) {
+                decoded.close();
+            } else {
+                body.close();
+            }
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                switch (contentEncoding) {
+                    case "identity":
+                        decoded = body;
+                        break;
+                    case "gzip":
+                    case "x-gzip":
+                        decoded = new GZIPInputStream(body, 8192);
+                        break;
+                    case "deflate":
+                        decoded = new InflaterInputStream(body);
+                        break;
+                    default:
+                        throw new IOException("Unsupported Content-Encoding " + contentEncoding);
+                }
+            }
+            return decoded;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package at.downdrown.somfy;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A {@link at.downdrown.somfy.domain.Command} for a single device, already serialized as request body.
+ *
+ * @author Manfred Huber
+ */
+@AllArgsConstructor
+@Getter
+final class PreparedExecution {
+
+    private final String deviceId;
+    private final byte[] body;
+
+}
@@ -0,0 +1,199 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A set of {@link Command}s for many {@link Device}s that is activated as a whole, e.g. a "morning" or "storm" scene.
+ * <p>
+ * All commands are validated against the capabilities of their device and serialized when the scene is built,
+ * so activating it only sends the requests. Commands can be sent all at once or in waves of a few devices,
+ * which keeps the number of motors that start at the same time low:
+ *
+ * <pre>{@code
+ * Scene storm = Scene.builder("storm")
+ *     .command(livingRoom, Command.ofCapability(Capability.CLOSE))
+ *     .command(kitchen, Command.ofCapability(Capability.CLOSE))
+ *     .staggered(4, Duration.ofSeconds(2))
+ *     .build();
+ *
+ * client.activate(storm);
+ * }</pre>
+ *
+ * @author Manfred Huber
+ * @see SomfyClient#activate(Scene)
+ */
+public final class Scene {
+
+    private final String name;
+    private final List<PreparedExecution> executions;
+    private final int waveSize;
+    private final Duration waveInterval;
+
+    private Scene(Builder builder) {
+        this.name = builder.name;
+        this.executions = List.copyOf(builder.executions.values());
+        this.waveSize = builder.waveSize;
+        this.waveInterval = builder.waveInterval;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the IDs of all devices of this scene, in the order their commands are sent.
+     */
+    public List<String> getDeviceIds() {
+        return executions.stream().map(PreparedExecution::getDeviceId).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * @return the number of devices whose commands are sent together.
+     */
+    public int getWaveSize() {
+        return waveSize;
+    }
+
+    /**
+     * @return the delay between two waves.
+     */
+    public Duration getWaveInterval() {
+        return waveInterval;
+    }
+
+    /**
+     * @return the executions of this scene, split into waves of {@link #getWaveSize()}.
+     */
+    List<List<PreparedExecution>> getWaves() {
+        final List<List<PreparedExecution>> waves = new ArrayList<>();
+        for (int i = 0; i < executions.size(); i += waveSize) {
+            waves.add(executions.subList(i, Math.min(executions.size(), i + waveSize)));
+        }
+        return waves;
+    }
+
+    @Override
+    public String toString() {
+        return "Scene(name=" + name + ", devices=" + executions.size() + ", waveSize=" + waveSize + ", waveInterval=" + waveInterval + ")";
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private final Map<String, PreparedExecution> executions = new LinkedHashMap<>();
+        private final Map<String, byte[]> commandBodies = new HashMap<>();
+        private int waveSize = Integer.MAX_VALUE;
+        private Duration waveInterval = Duration.ZERO;
+
+        private Builder(String name) {
+            this.name = Objects.requireNonNull(name, "No name present.");
+        }
+
+        /**
+         * Adds a {@link Command} for the given {@link Device}, which is validated against the capabilities
+         * the device has listed or, if it has not listed any, against those of its {@link DeviceType}.
+         *
+         * @throws IllegalArgumentException if the device does not support the command or a required parameter is missing.
+         */
+        public Builder command(Device device, Command command) {
+            final Set<Capability> capabilities = device.getCapabilities() != null || device.getType() == null
+                ? device.getCapabilities()
+                : device.getType().getCapabilities();
+            return command(device.getId(), capabilities, command);
+        }
+
+        /**
+         * Adds a {@link Command} for the device with the given {@code deviceId},
+         * which is validated against the capabilities of its {@link DeviceType}.
+         *
+         * @throws IllegalArgumentException if the device does not support the command or a required parameter is missing.
+         */
+        public Builder command(String deviceId, DeviceType deviceType, Command command) {
+            return command(deviceId, deviceType.getCapabilities(), command);
+        }
+
+        /**
+         * Sends all commands at the same time, limited by {@link at.downdrown.somfy.config.SomfyProperties#getExecutionParallelism()}.
+         * This is the default.
+         */
+        public Builder allAtOnce() {
+            this.waveSize = Integer.MAX_VALUE;
+            this.waveInterval = Duration.ZERO;
+            return this;
+        }
+
+        /**
+         * Sends the commands in waves of {@code waveSize} devices. The next wave starts {@code waveInterval}
+         * after all commands of the previous wave have been accepted by Somfy.
+         */
+        public Builder staggered(int waveSize, Duration waveInterval) {
+            if (waveSize < 1) {
+                throw new IllegalArgumentException("The wave size must be positive.");
+            }
+            if (waveInterval.isNegative()) {
+                throw new IllegalArgumentException("The wave interval must not be negative.");
+            }
+            this.waveSize = waveSize;
+            this.waveInterval = waveInterval;
+            return this;
+        }
+
+        public Scene build() {
+            return new Scene(this);
+        }
+
+        private Builder command(String deviceId, Set<Capability> capabilities, Command command) {
+            Objects.requireNonNull(deviceId, "No deviceId present.");
+            validate(deviceId, capabilities, command);
+            if (executions.containsKey(deviceId)) {
+                throw new IllegalArgumentException("Scene " + name + " already contains a command for device " + deviceId);
+            }
+
+            // devices with the same command share the serialized body
+            final String json = Json.toJson(command);
+            final byte[] body = commandBodies.computeIfAbsent(json, ignored -> json.getBytes(StandardCharsets.UTF_8));
+            executions.put(deviceId, new PreparedExecution(deviceId, body));
+            return this;
+        }
+
+        private static void validate(String deviceId, Set<Capability> capabilities, Command command) {
+            final Capability capability = Capability.fromIdentification(command.getName());
+            if (capabilities == null || capability == Capability.UNKNOWN || !capabilities.contains(capability)) {
+                throw new IllegalArgumentException("Device " + deviceId + " does not support " + command.getName());
+            }
+            for (Capability.Parameter parameter : capability.getParameters()) {
+                final Object value = command.getParameters().stream()
+                    .filter(commandParameter -> commandParameter.getName().equals(parameter.getIdentification()))
+                    .map(Command.Parameter::getValue)
+                    .findFirst()
+                    .orElse(null);
+                if (value == null && parameter.isRequired()) {
+                    throw new IllegalArgumentException("Command " + command.getName() + " for device " + deviceId
+                        + " is missing the parameter " + parameter.getIdentification());
+                }
+                if (value != null && !parameter.getParameterType().isInstance(value)) {
+                    throw new IllegalArgumentException("Parameter " + parameter.getIdentification() + " of command " + command.getName()
+                        + " must be of type " + parameter.getParameterType().getSimpleName());
+                }
+            }
+        }
+    }
+}
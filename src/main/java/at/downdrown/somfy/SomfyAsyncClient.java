@@ -0,0 +1,148 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Job;
+import at.downdrown.somfy.domain.Site;
+
+import java.net.http.HttpClient;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking client for interacting with the Somfy Open API.
+ * All methods return immediately, the returned {@link CompletableFuture}s complete
+ * once Somfy has answered the request.
+ * <p>
+ * The futures complete exceptionally with a
+ * {@link at.downdrown.somfy.exception.SomfyTokenExpiredException} when the access- & refresh token has expired,
+ * a {@link at.downdrown.somfy.exception.SomfyTokenFetchException} when no token could be fetched from Somfy or a
+ * {@link at.downdrown.somfy.exception.SomfyApiRequestException} when the request has not been successful.
+ * <p>
+ * Like with {@link SomfyClient}, sites and devices that have not been modified are completed with the objects of the
+ * previous call, so these objects are shared between callers and must not be modified.
+ *
+ * @author Manfred Huber
+ * @see SomfyClient
+ * @see SomfyAuthenticator
+ */
+public interface SomfyAsyncClient extends AutoCloseable {
+
+    static SomfyAsyncClient newAsyncClient(SomfyProperties properties, SomfyToken token) {
+        return SomfyClient.builder(properties, token).buildAsync();
+    }
+
+    static SomfyAsyncClient newAsyncClient(SomfyProperties properties, SomfyToken token, HttpClient httpClient) {
+        return SomfyClient.builder(properties, token).httpClient(httpClient).buildAsync();
+    }
+
+    /**
+     * Sets the {@link SomfyToken} that will be used when making requests.
+     *
+     * @param somfyToken a valid instance of {@link SomfyToken}.
+     * @see SomfyClient#setToken(SomfyToken)
+     */
+    void setToken(SomfyToken somfyToken);
+
+    /**
+     * Stops all background work of this client.
+     *
+     * @see SomfyClient#close()
+     */
+    @Override
+    void close();
+
+    /**
+     * List all {@link Site}s for the authenticated user.
+     *
+     * @return a future completing with all available {@link Site}s.
+     */
+    CompletableFuture<List<Site>> listSitesAsync();
+
+    /**
+     * Get a specific {@link Site} by it's {@code siteId}.
+     *
+     * @return a future completing with the {@link Site} with the given {@code siteId} or {@code null}.
+     */
+    CompletableFuture<Site> getSiteByIdAsync(String siteId);
+
+    /**
+     * List all {@link Device}s for the {@link Site} with the given {@code siteId}.
+     *
+     * @return a future completing with all available {@link Device}s.
+     */
+    CompletableFuture<List<Device>> listDevicesAsync(String siteId);
+
+    /**
+     * Get a specific {@link Device} by it's {@code deviceId}.
+     *
+     * @return a future completing with the {@link Device} with the given {@code deviceId} or {@code null}.
+     */
+    CompletableFuture<Device> getDeviceByIdAsync(String deviceId);
+
+    /**
+     * Get a specific {@link Job} by it's {@code jobId}.
+     *
+     * @return a future completing with the {@link Job} with the given {@code jobId} or {@code null}.
+     * @see SomfyClient#getJobById(String)
+     */
+    CompletableFuture<Job> getJobByIdAsync(String jobId);
+
+    /**
+     * Executes a {@link Command} for a {@link Device}.
+     *
+     * @param command  the command that should be executed.
+     * @param deviceId the ID of the device for which the command should be executed.
+     * @return a future completing with the {@code jobId} for the execution.
+     */
+    CompletableFuture<String> executeAsync(Command command, String deviceId);
+
+    /**
+     * Executes the same {@link Command} for many {@link Device}s.
+     *
+     * @param command   the command that should be executed.
+     * @param deviceIds the IDs of the devices for which the command should be executed.
+     * @return a future completing with the {@link ExecutionResult} per {@code deviceId}.
+     * @see SomfyClient#executeAll(Command, Collection)
+     */
+    CompletableFuture<Map<String, ExecutionResult>> executeAllAsync(Command command, Collection<String> deviceIds);
+
+    /**
+     * Activates a {@link Scene} by sending its already validated and serialized commands, wave by wave.
+     *
+     * @param scene the scene that should be activated.
+     * @return a future completing with the {@link ExecutionResult} per {@code deviceId}.
+     * @see SomfyClient#activate(Scene)
+     */
+    CompletableFuture<Map<String, ExecutionResult>> activateAsync(Scene scene);
+
+    /**
+     * Executes a {@link Command} for a {@link Device} and waits for the resulting job to finish.
+     *
+     * @param command  the command that should be executed.
+     * @param deviceId the ID of the device for which the command should be executed.
+     * @return a future completing with the {@link JobResult} once the job has reached a terminal status.
+     * @see #awaitJobAsync(String)
+     */
+    CompletableFuture<JobResult> executeAndAwaitAsync(Command command, String deviceId);
+
+    /**
+     * Waits for the job with the given {@code jobId} to reach a terminal status.
+     * The status of all outstanding jobs is polled together every
+     * {@link SomfyProperties#getJobPollInterval()}, with one request per job to the assumed
+     * {@code GET /job/{jobId}} endpoint.
+     *
+     * @param jobId the ID of the job, as returned when executing a {@link Command}.
+     * @return a future completing with the {@link JobResult} once the job has reached a terminal status,
+     * exceptionally with a {@link java.util.concurrent.TimeoutException} after {@link SomfyProperties#getJobTimeout()}
+     * exceptionally with an {@link IllegalStateException} as soon as the job has an
+     * {@link at.downdrown.somfy.domain.JobStatus#UNKNOWN} status or exceptionally with a
+     * {@link at.downdrown.somfy.exception.SomfyApiRequestException} if its status cannot be requested because of a
+     * client error.
+     */
+    CompletableFuture<JobResult> awaitJobAsync(String jobId);
+
+}
@@ -6,6 +6,8 @@ import at.downdrown.somfy.exception.SomfyTokenFetchException;
 
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Provides all required functionalities to authenticate a user, fetch & refresh tokens.
@@ -15,7 +17,7 @@ import java.net.http.HttpClient;
 public interface SomfyAuthenticator {
 
     static SomfyAuthenticator newAuthenticator(SomfyProperties properties) {
-        return newAuthenticator(properties, HttpClient.newHttpClient());
+        return newAuthenticator(properties, properties.getHttpOptions().newHttpClient(null));
     }
 
     static SomfyAuthenticator newAuthenticator(SomfyProperties properties, HttpClient httpClient) {
@@ -58,7 +60,8 @@ public interface SomfyAuthenticator {
 
     /**
      * Refreshes an existing {@link SomfyToken} using it's {@code refresh_token} only if
-     * the given {@link SomfyToken} is already expired, else it returns the given {@link SomfyToken}.
+     * the given {@link SomfyToken} is already expired or expires within the configured
+     * {@link SomfyProperties#getTokenRefreshLeeway()}, else it returns the given {@link SomfyToken}.
      *
      * @param token the existing {@link SomfyToken} that should be refreshed.
      * @return a valid {@link SomfyToken}.
@@ -66,4 +69,23 @@ public interface SomfyAuthenticator {
      */
     SomfyToken refreshToken(SomfyToken token) throws SomfyTokenFetchException, SomfyTokenExpiredException;
 
+    /**
+     * Non-blocking variant of {@link #refreshToken(SomfyToken)}.
+     * The returned future completes exceptionally with a {@link SomfyTokenFetchException}
+     * if no token could be fetched from Somfy.
+     * The default implementation calls {@link #refreshToken(SomfyToken)} on the common pool.
+     *
+     * @param token the existing {@link SomfyToken} that should be refreshed.
+     * @return a future completing with a valid {@link SomfyToken}.
+     */
+    default CompletableFuture<SomfyToken> refreshTokenAsync(SomfyToken token) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return refreshToken(token);
+            } catch (SomfyTokenFetchException | SomfyTokenExpiredException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
 }
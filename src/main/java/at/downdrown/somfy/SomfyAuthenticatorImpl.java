@@ -19,6 +19,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
 
 import static java.net.HttpURLConnection.HTTP_OK;
 import static java.time.LocalDateTime.now;
@@ -29,11 +32,18 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
 
     private final String state = UUID.randomUUID().toString();
 
+    /**
+     * Query parameters that must never show up in logs or exception messages.
+     */
+    private static final Pattern SECRET_QUERY_PARAMETERS = Pattern.compile("(?<=[?&](client_secret|refresh_token|code)=)[^&]*");
+
     private final SomfyProperties somfyProperties;
+    private final SomfyEndpoints endpoints;
     private final HttpClient httpClient;
 
     SomfyAuthenticatorImpl(SomfyProperties properties, HttpClient httpClient) {
         this.somfyProperties = properties;
+        this.endpoints = new SomfyEndpoints(properties);
         this.httpClient = httpClient;
     }
 
@@ -45,20 +55,19 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
     @Override
     public URI buildAuthenticationRequestUri() {
 
-        StringBuilder uriBuilder = new StringBuilder(somfyProperties.getAuthUrl());
-        uriBuilder.append("/auth");
+        StringBuilder uriBuilder = new StringBuilder(endpoints.authorization());
         uriBuilder.append("?response_type=code");
         uriBuilder.append("&client_id=");
-        uriBuilder.append(somfyProperties.getConsumerKey());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getConsumerKey()));
         uriBuilder.append("&redirect_uri=");
-        uriBuilder.append(somfyProperties.getCallbackUrl());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getCallbackUrl()));
         uriBuilder.append("&state=");
         uriBuilder.append(state);
         uriBuilder.append("&grant_type=authorization_code");
 
         final URI uri = URI.create(uriBuilder.toString());
 
-        log.debug("Built authentication request URI : {}", uri);
+        log.debug("Built authentication request URI : {}", redact(uri));
 
         return uri;
     }
@@ -72,24 +81,23 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
 
         Objects.requireNonNull(authorizationCode, "No authorizationCode present.");
 
-        StringBuilder uriBuilder = new StringBuilder(somfyProperties.getAuthUrl());
-        uriBuilder.append("/token");
+        StringBuilder uriBuilder = new StringBuilder(endpoints.token());
         uriBuilder.append("?response_type=code");
         uriBuilder.append("&client_id=");
-        uriBuilder.append(somfyProperties.getConsumerKey());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getConsumerKey()));
         uriBuilder.append("&client_secret=");
-        uriBuilder.append(somfyProperties.getConsumerSecret());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getConsumerSecret()));
         uriBuilder.append("&redirect_uri=");
-        uriBuilder.append(somfyProperties.getCallbackUrl());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getCallbackUrl()));
         uriBuilder.append("&code=");
-        uriBuilder.append(authorizationCode);
+        uriBuilder.append(UriUtils.encodeQueryParameter(authorizationCode));
         uriBuilder.append("&state=");
         uriBuilder.append(state);
         uriBuilder.append("&grant_type=authorization_code");
 
         final URI uri = URI.create(uriBuilder.toString());
 
-        log.debug("Built token request URI : {}", uri);
+        log.debug("Built token request URI : {}", redact(uri));
 
         return uri;
     }
@@ -103,19 +111,18 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
 
         Objects.requireNonNull(refreshToken, "No refreshToken present.");
 
-        StringBuilder uriBuilder = new StringBuilder(somfyProperties.getAuthUrl());
-        uriBuilder.append("/token");
+        StringBuilder uriBuilder = new StringBuilder(endpoints.token());
         uriBuilder.append("?client_id=");
-        uriBuilder.append(somfyProperties.getConsumerKey());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getConsumerKey()));
         uriBuilder.append("&client_secret=");
-        uriBuilder.append(somfyProperties.getConsumerSecret());
+        uriBuilder.append(UriUtils.encodeQueryParameter(somfyProperties.getConsumerSecret()));
         uriBuilder.append("&refresh_token=");
-        uriBuilder.append(refreshToken);
+        uriBuilder.append(UriUtils.encodeQueryParameter(refreshToken));
         uriBuilder.append("&grant_type=refresh_token");
 
         final URI uri = URI.create(uriBuilder.toString());
 
-        log.debug("Built token refresh URI : {}", uri);
+        log.debug("Built token refresh URI : {}", redact(uri));
 
         return uri;
     }
@@ -136,15 +143,31 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
 
     @Override
     public SomfyToken refreshToken(SomfyToken token) throws SomfyTokenFetchException {
-        if (token.isAccessTokenExpired()) {
+        if (token.isAccessTokenExpiringWithin(somfyProperties.getTokenRefreshLeeway())) {
             return obtainToken(buildTokenRefreshUri(token.getRefreshToken())).toSomfyToken();
         }
         return token;
     }
 
+    @Override
+    public CompletableFuture<SomfyToken> refreshTokenAsync(SomfyToken token) {
+        if (token.isAccessTokenExpiringWithin(somfyProperties.getTokenRefreshLeeway())) {
+            return renewTokenAsync(token);
+        }
+        return CompletableFuture.completedFuture(token);
+    }
+
+    /**
+     * Refreshes the given {@link SomfyToken} regardless of when it expires.
+     */
+    CompletableFuture<SomfyToken> renewTokenAsync(SomfyToken token) {
+        return obtainTokenAsync(buildTokenRefreshUri(token.getRefreshToken()))
+            .thenApply(AccessTokenResponse::toSomfyToken);
+    }
+
     private AccessTokenResponse obtainToken(final URI uri) throws SomfyTokenFetchException {
         try {
-            final HttpRequest tokenRequest = HttpRequest.newBuilder(uri).GET().build();
+            final HttpRequest tokenRequest = newTokenRequest(uri);
             final HttpResponse<String> tokenResponse = httpClient.send(tokenRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
 
             if (tokenResponse.statusCode() == HTTP_OK) {
@@ -152,23 +175,56 @@ final class SomfyAuthenticatorImpl implements SomfyAuthenticator {
                 log.debug("Successfully obtained access token: {}", accessTokenResponse);
                 return accessTokenResponse;
             } else {
-                throw new SomfyTokenFetchException("Could not fetch a token from URI=" + uri);
+                throw new SomfyTokenFetchException("Could not fetch a token from URI=" + redact(uri));
             }
         } catch (IOException | InterruptedException e) {
-            throw new SomfyTokenFetchException("Could not fetch a token from URI=" + uri, e);
+            throw new SomfyTokenFetchException("Could not fetch a token from URI=" + redact(uri), e);
         }
     }
 
+    private CompletableFuture<AccessTokenResponse> obtainTokenAsync(final URI uri) {
+        final HttpRequest tokenRequest = newTokenRequest(uri);
+        return httpClient.sendAsync(tokenRequest, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+            .handle((tokenResponse, e) -> {
+                if (e != null) {
+                    throw new CompletionException(new SomfyTokenFetchException("Could not fetch a token from URI=" + redact(uri), e));
+                }
+                if (tokenResponse.statusCode() != HTTP_OK) {
+                    throw new CompletionException(new SomfyTokenFetchException("Could not fetch a token from URI=" + redact(uri)));
+                }
+                AccessTokenResponse accessTokenResponse = Json.fromJson(tokenResponse.body(), AccessTokenResponse.class);
+                log.debug("Successfully obtained access token: {}", accessTokenResponse);
+                return accessTokenResponse;
+            });
+    }
+
+    /**
+     * Masks the values of all secret query parameters, so the {@link URI} can be logged.
+     */
+    static String redact(URI uri) {
+        return SECRET_QUERY_PARAMETERS.matcher(uri.toString()).replaceAll("***");
+    }
+
+    private HttpRequest newTokenRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+            .timeout(somfyProperties.getHttpOptions().getRequestTimeout())
+            .GET()
+            .build();
+    }
+
     @NoArgsConstructor
     @Data
     @ToString
-    private static final class AccessTokenResponse {
+    static final class AccessTokenResponse {
 
-        private final LocalDateTime issuedAt = now();
+        // transient, so that Gson does not reflect into java.time, which is not allowed on Java 17 and newer
+        private final transient LocalDateTime issuedAt = now();
 
+        @ToString.Exclude
         @SerializedName("access_token")
         private String accessToken;
 
+        @ToString.Exclude
         @SerializedName("refresh_token")
         private String refreshToken;
 
@@ -3,27 +3,48 @@ package at.downdrown.somfy;
 import at.downdrown.somfy.config.SomfyProperties;
 import at.downdrown.somfy.domain.Command;
 import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Job;
 import at.downdrown.somfy.domain.Site;
 import at.downdrown.somfy.exception.SomfyTokenExpiredException;
 import at.downdrown.somfy.exception.SomfyTokenFetchException;
 
 import java.net.http.HttpClient;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Client for interacting with the Somfy Open API.
+ * <p>
+ * Sites and devices are requested conditionally. If Somfy answers that they have not been modified, the objects
+ * returned by the previous call are returned again, so these objects are shared between callers and must not be modified.
  *
  * @author Manfred Huber (downdrown)
  * @see SomfyAuthenticator
  */
-public interface SomfyClient {
+public interface SomfyClient extends AutoCloseable {
 
     static SomfyClient newClient(SomfyProperties properties, SomfyToken token) {
-        return newClient(properties, token, HttpClient.newHttpClient());
+        return builder(properties, token).build();
     }
 
     static SomfyClient newClient(SomfyProperties properties, SomfyToken token, HttpClient httpClient) {
-        return new SomfyClientImpl(properties, token, httpClient);
+        return builder(properties, token).httpClient(httpClient).build();
+    }
+
+    static SomfyClientBuilder builder(SomfyProperties properties, SomfyToken token) {
+        return new SomfyClientBuilder(properties).token(token);
+    }
+
+    /**
+     * Creates a builder without a token, the token has to be passed or loaded from a {@link TokenStore}.
+     *
+     * @see SomfyClientBuilder#tokenStore(TokenStore)
+     */
+    static SomfyClientBuilder builder(SomfyProperties properties) {
+        return new SomfyClientBuilder(properties);
     }
 
     /**
@@ -36,10 +57,18 @@ public interface SomfyClient {
      */
     void setToken(SomfyToken somfyToken);
 
+    /**
+     * Stops all background work of this client, like the proactive refresh of its token.
+     * Requests can still be made afterwards, the token is then only refreshed once it has expired.
+     * Clients obtained from a {@link SomfyClientPool} are closed by the pool when their account is evicted.
+     */
+    @Override
+    void close();
+
     /**
      * List all {@link Site}s for the authenticated user.
      *
-     * @return all available {@link Site}s.
+     * @return all available {@link Site}s, shared with other callers.
      * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
      */
     List<Site> listSites() throws SomfyTokenExpiredException, SomfyTokenFetchException;
@@ -47,7 +76,7 @@ public interface SomfyClient {
     /**
      * Get a specific {@link Site} by it's {@code siteId}.
      *
-     * @return the {@link Site} with the given {@code siteId} or {@code null}.
+     * @return the {@link Site} with the given {@code siteId} or {@code null}, shared with other callers.
      * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
      */
     Site getSiteById(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
@@ -55,19 +84,50 @@ public interface SomfyClient {
     /**
      * List all {@link Device}s for the {@link Site} with the given {@code siteId}.
      *
-     * @return all available {@link Device}s.
+     * @return all available {@link Device}s, shared with other callers.
      * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
      */
     List<Device> listDevices(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
 
+    /**
+     * Streams all {@link Device}s for the {@link Site} with the given {@code siteId}.
+     * The devices are deserialized one by one while the response body is read,
+     * so only the device that is currently processed is held in memory.
+     * The returned {@link Stream} holds the underlying connection and must be closed.
+     *
+     * @return a {@link Stream} of all available {@link Device}s.
+     * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
+     */
+    Stream<Device> streamDevices(String siteId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
+
+    /**
+     * Passes all {@link Device}s for the {@link Site} with the given {@code siteId} to the given {@code consumer}
+     * while the response body is read.
+     *
+     * @param siteId   the ID of the site which devices should be processed.
+     * @param consumer the consumer that is called for every device.
+     * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
+     * @see #streamDevices(String)
+     */
+    void forEachDevice(String siteId, Consumer<Device> consumer) throws SomfyTokenExpiredException, SomfyTokenFetchException;
+
     /**
      * Get a specific {@link Device} by it's {@code deviceId}.
      *
-     * @return the {@link Device} with the given {@code deviceId} or {@code null}.
+     * @return the {@link Device} with the given {@code deviceId} or {@code null}, shared with other callers.
      * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
      */
     Device getDeviceById(String deviceId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
 
+    /**
+     * Get a specific {@link Job} by it's {@code jobId}.
+     * Somfy's Open API does not document this endpoint, {@code GET /job/{jobId}} and its status values are assumed.
+     *
+     * @return the {@link Job} with the given {@code jobId} or {@code null}.
+     * @see at.downdrown.somfy.domain.JobStatus
+     */
+    Job getJobById(String jobId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
+
     /**
      * Executes a {@link Command} for a {@link Device}.
      *
@@ -78,4 +138,26 @@ public interface SomfyClient {
      */
     String execute(Command command, String deviceId) throws SomfyTokenExpiredException, SomfyTokenFetchException;
 
+    /**
+     * Executes the same {@link Command} for many {@link Device}s.
+     * The commands are sent concurrently, at most {@link SomfyProperties#getExecutionParallelism()} at a time.
+     * A failed execution for one device does not affect the executions for the other devices.
+     *
+     * @param command   the command that should be executed.
+     * @param deviceIds the IDs of the devices for which the command should be executed.
+     * @return the {@link ExecutionResult} per {@code deviceId}, in the iteration order of {@code deviceIds}.
+     * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
+     */
+    Map<String, ExecutionResult> executeAll(Command command, Collection<String> deviceIds) throws SomfyTokenExpiredException, SomfyTokenFetchException;
+
+    /**
+     * Activates a {@link Scene} by sending its already validated and serialized commands, wave by wave.
+     * A failed execution for one device does not affect the executions for the other devices.
+     *
+     * @param scene the scene that should be activated.
+     * @return the {@link ExecutionResult} per {@code deviceId}, in the order of {@link Scene#getDeviceIds()}.
+     * @throws SomfyTokenExpiredException when the access- & refresh token has expired.
+     */
+    Map<String, ExecutionResult> activate(Scene scene) throws SomfyTokenExpiredException, SomfyTokenFetchException;
+
 }
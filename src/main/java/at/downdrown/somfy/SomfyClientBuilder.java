@@ -0,0 +1,117 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+
+import java.net.http.HttpClient;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Builder for {@link SomfyClient}s and {@link SomfyAsyncClient}s that need more than the defaults.
+ *
+ * <pre>{@code
+ * SomfyClient client = SomfyClient.builder(properties, token)
+ *     .executor(SomfyExecutors.newThreadPerTaskExecutor())
+ *     .metrics(metrics)
+ *     .build();
+ * }</pre>
+ *
+ * @author Manfred Huber
+ */
+public final class SomfyClientBuilder {
+
+    private final SomfyProperties properties;
+
+    private SomfyToken token;
+    private TokenStore tokenStore = TokenStore.inMemory();
+    private HttpClient httpClient;
+    private Executor executor;
+    private SomfyClientMetrics metrics = SomfyClientMetrics.NOOP;
+
+    SomfyClientBuilder(SomfyProperties properties) {
+        this.properties = Objects.requireNonNull(properties, "No properties present.");
+    }
+
+    /**
+     * Sets the initial {@link SomfyToken}. It may be omitted if the {@link #tokenStore(TokenStore)} already holds one.
+     */
+    public SomfyClientBuilder token(SomfyToken token) {
+        this.token = Objects.requireNonNull(token, "No token present.");
+        return this;
+    }
+
+    /**
+     * Sets the {@link TokenStore} the token is loaded from when the client is built and written to on every refresh.
+     * If a token has been passed as well, the one that expires last is used.
+     * By default the token is only kept in memory.
+     */
+    public SomfyClientBuilder tokenStore(TokenStore tokenStore) {
+        this.tokenStore = Objects.requireNonNull(tokenStore, "No tokenStore present.");
+        return this;
+    }
+
+    /**
+     * Sets the {@link HttpClient} that is used to send requests and refresh tokens.
+     * By default a new one is created according to {@link SomfyProperties#getHttpOptions()}.
+     */
+    public SomfyClientBuilder httpClient(HttpClient httpClient) {
+        this.httpClient = httpClient;
+        return this;
+    }
+
+    /**
+     * Sets the {@link Executor} that runs background work such as proactive token refreshes, delayed retries and
+     * job status polling. If no {@link HttpClient} has been set, the created one uses this executor as well.
+     * By default the {@link ForkJoinPool#commonPool()} is used.
+     *
+     * @see SomfyExecutors#newThreadPerTaskExecutor()
+     */
+    public SomfyClientBuilder executor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "No executor present.");
+        return this;
+    }
+
+    /**
+     * Sets the {@link SomfyClientMetrics} that are notified about every request.
+     */
+    public SomfyClientBuilder metrics(SomfyClientMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics, "No metrics present.");
+        return this;
+    }
+
+    public SomfyClient build() {
+        return new SomfyClientImpl(this);
+    }
+
+    public SomfyAsyncClient buildAsync() {
+        return new SomfyClientImpl(this);
+    }
+
+    SomfyProperties getProperties() {
+        return properties;
+    }
+
+    SomfyToken getToken() {
+        return token;
+    }
+
+    TokenStore getTokenStore() {
+        return tokenStore;
+    }
+
+    HttpClient getHttpClient() {
+        if (httpClient != null) {
+            return httpClient;
+        }
+        return properties.getHttpOptions().newHttpClient(executor);
+    }
+
+    Executor getExecutor() {
+        return executor != null ? executor : ForkJoinPool.commonPool();
+    }
+
+    SomfyClientMetrics getMetrics() {
+        return metrics;
+    }
+}
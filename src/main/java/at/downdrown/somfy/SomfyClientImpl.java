@@ -3,119 +3,425 @@ package at.downdrown.somfy;
 import at.downdrown.somfy.config.SomfyProperties;
 import at.downdrown.somfy.domain.Command;
 import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Job;
 import at.downdrown.somfy.domain.Site;
-import at.downdrown.somfy.exception.SomfyApiRequestException;
 import at.downdrown.somfy.exception.SomfyTokenExpiredException;
 import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import static java.net.HttpURLConnection.HTTP_OK;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j(topic = "somfyclient")
-final class SomfyClientImpl implements SomfyClient {
+final class SomfyClientImpl implements SomfyClient, SomfyAsyncClient {
 
-    private final SomfyProperties somfyProperties;
-    private final SomfyAuthenticator somfyAuthenticator;
-    private final HttpClient httpClient;
+    private static final String LIST_SITES = "listSites";
+    private static final String GET_SITE = "getSiteById";
+    private static final String LIST_DEVICES = "listDevices";
+    private static final String GET_DEVICE = "getDeviceById";
+    private static final String GET_JOB = "getJobById";
+    private static final String EXECUTE = "execute";
 
-    private SomfyToken somfyToken;
+    private final SomfyProperties somfyProperties;
+    private final SomfyEndpoints endpoints;
+    private final SomfyTokenHolder somfyTokenHolder;
+    private final SomfyHttpTransport transport;
+    private final InFlightRequests inFlightRequests;
+    private final ConditionalRequests conditionalRequests;
+    private final JobTracker jobTracker;
+    private final SomfyClientMetrics metrics;
+    private final Executor executor;
+    private final boolean compression;
 
-    SomfyClientImpl(SomfyProperties somfyProperties,
-                    SomfyToken somfyToken,
-                    HttpClient httpClient) {
-        this.somfyProperties = somfyProperties;
-        this.somfyAuthenticator = SomfyAuthenticator.newAuthenticator(somfyProperties, httpClient);
-        this.somfyToken = somfyToken;
-        this.httpClient = httpClient;
+    SomfyClientImpl(SomfyClientBuilder builder) {
+        final HttpClient httpClient = builder.getHttpClient();
+        this.executor = builder.getExecutor();
+        this.somfyProperties = builder.getProperties();
+        this.endpoints = new SomfyEndpoints(somfyProperties);
+        this.compression = somfyProperties.getHttpOptions().isCompression();
+        this.metrics = builder.getMetrics();
+        this.somfyTokenHolder = new SomfyTokenHolder(
+            SomfyAuthenticator.newAuthenticator(somfyProperties, httpClient),
+            somfyProperties.getTokenRefreshLeeway(),
+            builder.getToken(),
+            builder.getTokenStore(),
+            metrics,
+            executor);
+        this.transport = new SomfyHttpTransport(somfyProperties, httpClient, metrics, executor);
+        this.inFlightRequests = new InFlightRequests(somfyProperties.isCoalesceRequests());
+        this.conditionalRequests = new ConditionalRequests(somfyProperties.getConditionalRequestCacheSize());
+        this.jobTracker = new JobTracker(this::getJobByIdAsync,
+            somfyProperties.getJobPollInterval(),
+            somfyProperties.getJobTimeout(),
+            System::nanoTime,
+            executor);
     }
 
     @Override
     public void setToken(SomfyToken somfyToken) {
-        this.somfyToken = somfyToken;
+        somfyTokenHolder.setToken(somfyToken);
+    }
+
+    @Override
+    public void close() {
+        somfyTokenHolder.close();
     }
 
     @Override
     public List<Site> listSites() throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        final HttpRequest listSitesRequest = newRequest(URI.create(somfyProperties.getApiUrl() + "/site"))
-            .GET()
-            .build();
-        final HttpResponse<String> listSitesResponse = sendRequest(listSitesRequest);
-        return List.of(Json.fromJson(listSitesResponse.body(), Site[].class));
+        return inFlightRequests.coalesce("/site", () ->
+            get(LIST_SITES, endpoints.sites(), Site[].class, List::of));
+    }
+
+    @Override
+    public CompletableFuture<List<Site>> listSitesAsync() {
+        return inFlightRequests.coalesceAsync("/site", () ->
+            getAsync(LIST_SITES, endpoints.sites(), Site[].class, List::of));
     }
 
     @Override
     public Site getSiteById(String siteId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        final HttpRequest getSiteRequest = newRequest(URI.create(somfyProperties.getApiUrl() + "/site/" + siteId))
-            .GET()
-            .build();
-        final HttpResponse<String> listSitesResponse = sendRequest(getSiteRequest);
-        return Json.fromJson(listSitesResponse.body(), Site.class);
+        return inFlightRequests.coalesce("/site/" + siteId, () ->
+            get(GET_SITE, endpoints.site(siteId), Site.class, Function.identity()));
+    }
+
+    @Override
+    public CompletableFuture<Site> getSiteByIdAsync(String siteId) {
+        return inFlightRequests.coalesceAsync("/site/" + siteId, () ->
+            getAsync(GET_SITE, endpoints.site(siteId), Site.class, Function.identity()));
     }
 
     @Override
     public List<Device> listDevices(String siteId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        final HttpRequest listDevicesRequest = newRequest(URI.create(somfyProperties.getApiUrl() + "/site/" + siteId + "/device"))
-            .GET()
-            .build();
-        final HttpResponse<String> listDevicesResponse = sendRequest(listDevicesRequest);
-        return List.of(Json.fromJson(listDevicesResponse.body(), Device[].class));
+        return inFlightRequests.coalesce("/site/" + siteId + "/device", () ->
+            get(LIST_DEVICES, endpoints.devices(siteId), Device[].class, List::of));
+    }
+
+    @Override
+    public CompletableFuture<List<Device>> listDevicesAsync(String siteId) {
+        return inFlightRequests.coalesceAsync("/site/" + siteId + "/device", () ->
+            getAsync(LIST_DEVICES, endpoints.devices(siteId), Device[].class, List::of));
+    }
+
+    @Override
+    public Stream<Device> streamDevices(String siteId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        final HttpRequest listDevicesRequest = newListDevicesRequest(obtainValidAccessToken(), siteId);
+        final HttpResponse<JsonReader> listDevicesResponse = sendRequest(LIST_DEVICES, listDevicesRequest, JsonBodyHandlers.ofJsonReader());
+        return Json.streamArray(listDevicesResponse.body(), Device.class);
+    }
+
+    @Override
+    public void forEachDevice(String siteId, Consumer<Device> consumer) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        try (Stream<Device> devices = streamDevices(siteId)) {
+            devices.forEach(consumer);
+        }
     }
 
     @Override
     public Device getDeviceById(String deviceId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        final HttpRequest getDeviceRequest = newRequest(URI.create(somfyProperties.getApiUrl() + "/device/" + deviceId))
-            .GET()
-            .build();
-        final HttpResponse<String> getDevicesResponse = sendRequest(getDeviceRequest);
-        return Json.fromJson(getDevicesResponse.body(), Device.class);
+        return inFlightRequests.coalesce("/device/" + deviceId, () ->
+            get(GET_DEVICE, endpoints.device(deviceId), Device.class, Function.identity()));
+    }
+
+    @Override
+    public CompletableFuture<Device> getDeviceByIdAsync(String deviceId) {
+        return inFlightRequests.coalesceAsync("/device/" + deviceId, () ->
+            getAsync(GET_DEVICE, endpoints.device(deviceId), Device.class, Function.identity()));
+    }
+
+    @Override
+    public Job getJobById(String jobId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return inFlightRequests.coalesce("/job/" + jobId, () -> {
+            final HttpRequest getJobRequest = newGetJobRequest(obtainValidAccessToken(), jobId);
+            final HttpResponse<String> getJobResponse = sendRequest(GET_JOB, getJobRequest);
+            return fromJson(GET_JOB, getJobResponse.body(), Job.class);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Job> getJobByIdAsync(String jobId) {
+        return inFlightRequests.coalesceAsync("/job/" + jobId, () -> obtainValidAccessTokenAsync()
+            .thenCompose(accessToken -> sendRequestAsync(GET_JOB, newGetJobRequest(accessToken, jobId)))
+            .thenApply(getJobResponse -> fromJson(GET_JOB, getJobResponse.body(), Job.class)));
     }
 
     @Override
     public String execute(Command command, String deviceId) throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        final HttpRequest commandRequest = newRequest(URI.create(somfyProperties.getApiUrl() + "/device/" + deviceId + "/exec"))
+        final HttpRequest commandRequest = newExecuteRequest(obtainValidAccessToken(), command, deviceId);
+        HttpResponse<String> commandResponse = sendRequest(EXECUTE, commandRequest);
+        return parseJobId(commandResponse.body());
+    }
+
+    @Override
+    public CompletableFuture<String> executeAsync(Command command, String deviceId) {
+        return obtainValidAccessTokenAsync()
+            .thenCompose(accessToken -> sendRequestAsync(EXECUTE, newExecuteRequest(accessToken, command, deviceId)))
+            .thenApply(commandResponse -> parseJobId(commandResponse.body()));
+    }
+
+    @Override
+    public Map<String, ExecutionResult> executeAll(Command command, Collection<String> deviceIds) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return dispatchAll(obtainValidAccessToken(), prepareExecutions(command, deviceIds)).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ExecutionResult>> executeAllAsync(Command command, Collection<String> deviceIds) {
+        final List<PreparedExecution> executions = prepareExecutions(command, deviceIds);
+        return obtainValidAccessTokenAsync()
+            .thenCompose(accessToken -> dispatchAll(accessToken, executions));
+    }
+
+    @Override
+    public Map<String, ExecutionResult> activate(Scene scene) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return dispatchWaves(obtainValidAccessToken(), scene).join();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, ExecutionResult>> activateAsync(Scene scene) {
+        return obtainValidAccessTokenAsync()
+            .thenCompose(accessToken -> dispatchWaves(accessToken, scene));
+    }
+
+    @Override
+    public CompletableFuture<JobResult> executeAndAwaitAsync(Command command, String deviceId) {
+        return executeAsync(command, deviceId).thenCompose(this::awaitJobAsync);
+    }
+
+    @Override
+    public CompletableFuture<JobResult> awaitJobAsync(String jobId) {
+        return jobTracker.track(jobId);
+    }
+
+    private static List<PreparedExecution> prepareExecutions(Command command, Collection<String> deviceIds) {
+        final byte[] commandBody = Json.toJson(command).getBytes(StandardCharsets.UTF_8);
+        final List<PreparedExecution> executions = new ArrayList<>(deviceIds.size());
+        deviceIds.forEach(deviceId -> executions.add(new PreparedExecution(deviceId, commandBody)));
+        return executions;
+    }
+
+    /**
+     * Dispatches the waves of the given {@link Scene} one after another, waiting
+     * {@link Scene#getWaveInterval()} after each wave has been dispatched.
+     * The returned future never completes exceptionally, failures are reported per device.
+     */
+    private CompletableFuture<Map<String, ExecutionResult>> dispatchWaves(String accessToken, Scene scene) {
+        final Map<String, ExecutionResult> results = new LinkedHashMap<>();
+        CompletableFuture<Void> dispatched = null;
+        for (List<PreparedExecution> wave : scene.getWaves()) {
+            final CompletableFuture<Map<String, ExecutionResult>> waveResults = dispatched == null
+                ? dispatchAll(accessToken, wave)
+                : dispatched.thenCompose(ignored -> delay(scene.getWaveInterval())).thenCompose(ignored -> dispatchAll(accessToken, wave));
+            dispatched = waveResults.thenAccept(results::putAll);
+        }
+        return dispatched == null
+            ? CompletableFuture.completedFuture(results)
+            : dispatched.thenApply(ignored -> results);
+    }
+
+    private CompletableFuture<Void> delay(Duration delay) {
+        if (delay.isZero()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Sends the already serialized commands to their devices, keeping at most
+     * {@link SomfyProperties#getExecutionParallelism()} requests in flight.
+     * The returned future never completes exceptionally, failures are reported per device.
+     */
+    private CompletableFuture<Map<String, ExecutionResult>> dispatchAll(String accessToken, List<PreparedExecution> executions) {
+        final Map<String, ExecutionResult> results = new ConcurrentHashMap<>();
+        final Iterator<PreparedExecution> pendingExecutions = List.copyOf(executions).iterator();
+        final int lanes = Math.max(1, Math.min(somfyProperties.getExecutionParallelism(), executions.size()));
+
+        final CompletableFuture<?>[] dispatchers = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            dispatchers[i] = dispatchNext(accessToken, pendingExecutions, results);
+        }
+
+        return CompletableFuture.allOf(dispatchers)
+            .thenApply(ignored -> {
+                final Map<String, ExecutionResult> orderedResults = new LinkedHashMap<>();
+                executions.forEach(execution -> orderedResults.put(execution.getDeviceId(), results.get(execution.getDeviceId())));
+                return orderedResults;
+            });
+    }
+
+    private CompletableFuture<Void> dispatchNext(String accessToken, Iterator<PreparedExecution> pendingExecutions, Map<String, ExecutionResult> results) {
+        final PreparedExecution execution;
+        synchronized (pendingExecutions) {
+            if (!pendingExecutions.hasNext()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            execution = pendingExecutions.next();
+        }
+
+        final String deviceId = execution.getDeviceId();
+        // continue asynchronously, so that a lane of immediately completing requests does not grow the stack
+        return sendRequestAsync(EXECUTE, newExecuteRequest(accessToken, execution.getBody(), deviceId))
+            .handle((commandResponse, e) -> results.put(deviceId, toExecutionResult(commandResponse, e)))
+            .thenComposeAsync(ignored -> dispatchNext(accessToken, pendingExecutions, results), executor);
+    }
+
+    private ExecutionResult toExecutionResult(HttpResponse<String> commandResponse, Throwable e) {
+        if (e != null) {
+            return ExecutionResult.failed(Futures.unwrap(e));
+        }
+        try {
+            return ExecutionResult.succeeded(parseJobId(commandResponse.body()));
+        } catch (RuntimeException parseException) {
+            return ExecutionResult.failed(parseException);
+        }
+    }
+
+    private String parseJobId(String body) {
+        final Execution execution = fromJson(EXECUTE, body, Execution.class);
+        if (execution == null || execution.getJobId() == null) {
+            throw new JsonParseException("Execution response does not contain a job id");
+        }
+        return execution.getJobId();
+    }
+
+    /**
+     * Sends a conditional {@code GET} request for the given {@code uri}, if a previous response has been remembered.
+     * With compression enabled, the body is decompressed while it is parsed instead of being read into a {@link String}.
+     */
+    private <B, T> T get(String endpoint, URI uri, Class<B> type, Function<B, T> mapper) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        final ConditionalRequests.Validators validators = conditionalRequests.validatorsFor(uri);
+        final HttpRequest request = newGetRequest(uri, obtainValidAccessToken(), validators);
+        if (compression) {
+            final HttpResponse<Reader> response = sendRequest(endpoint, request, JsonBodyHandlers.ofDecodingReader());
+            return conditionalRequests.resolve(uri, validators, response, body -> mapper.apply(fromJson(endpoint, body, type)));
+        }
+        final HttpResponse<String> response = sendRequest(endpoint, request);
+        return conditionalRequests.resolve(uri, validators, response, body -> mapper.apply(fromJson(endpoint, body, type)));
+    }
+
+    private <B, T> CompletableFuture<T> getAsync(String endpoint, URI uri, Class<B> type, Function<B, T> mapper) {
+        final ConditionalRequests.Validators validators = conditionalRequests.validatorsFor(uri);
+        final CompletableFuture<HttpRequest> request = obtainValidAccessTokenAsync()
+            .thenApply(accessToken -> newGetRequest(uri, accessToken, validators));
+        if (compression) {
+            return request
+                .thenCompose(getRequest -> sendRequestAsync(endpoint, getRequest, JsonBodyHandlers.ofDecodingReader()))
+                .thenApply(response -> conditionalRequests.resolve(uri, validators, response, body -> mapper.apply(fromJson(endpoint, body, type))));
+        }
+        return request
+            .thenCompose(getRequest -> sendRequestAsync(endpoint, getRequest))
+            .thenApply(response -> conditionalRequests.resolve(uri, validators, response, body -> mapper.apply(fromJson(endpoint, body, type))));
+    }
+
+    private HttpRequest newGetRequest(URI uri, String accessToken, ConditionalRequests.Validators validators) {
+        return ConditionalRequests.conditional(acceptCompressed(newRequest(uri, accessToken)), validators)
+            .GET()
+            .build();
+    }
+
+    private HttpRequest newListDevicesRequest(String accessToken, String siteId) {
+        return acceptCompressed(newRequest(endpoints.devices(siteId), accessToken))
+            .GET()
+            .build();
+    }
+
+    private HttpRequest newGetJobRequest(String accessToken, String jobId) {
+        return newRequest(endpoints.job(jobId), accessToken)
+            .GET()
+            .build();
+    }
+
+    private HttpRequest newExecuteRequest(String accessToken, Command command, String deviceId) {
+        return newExecuteRequest(accessToken, Json.toJson(command).getBytes(StandardCharsets.UTF_8), deviceId);
+    }
+
+    private HttpRequest newExecuteRequest(String accessToken, byte[] commandBody, String deviceId) {
+        return newRequest(endpoints.deviceExecution(deviceId), accessToken)
             .header("Content-Type", "application/json; charset=UTF-8")
-            .POST(HttpRequest.BodyPublishers.ofString(Json.toJson(command)))
+            .POST(HttpRequest.BodyPublishers.ofByteArray(commandBody))
             .build();
-        HttpResponse<String> commandResponse = sendRequest(commandRequest);
-        Execution execution = Json.fromJson(commandResponse.body(), Execution.class);
-        return execution.getJobId();
     }
 
-    private HttpRequest.Builder newRequest(URI uri) throws SomfyTokenFetchException, SomfyTokenExpiredException {
+    /**
+     * Asks for a compressed response if compression is enabled.
+     * Only requests whose response is read through {@link JsonBodyHandlers} may accept compressed responses.
+     */
+    private HttpRequest.Builder acceptCompressed(HttpRequest.Builder request) {
+        return compression ? request.header("Accept-Encoding", JsonBodyHandlers.ACCEPT_ENCODING) : request;
+    }
+
+    private HttpRequest.Builder newRequest(URI uri, String accessToken) {
         return HttpRequest.newBuilder(uri)
-            .header("Authorization", "Bearer " + obtainValidAccessToken(somfyToken));
+            .timeout(somfyProperties.getHttpOptions().getRequestTimeout())
+            .header("Authorization", "Bearer " + accessToken);
     }
 
-    private HttpResponse<String> sendRequest(HttpRequest request) {
-        try {
-            final HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-            if (response.statusCode() != HTTP_OK) {
-                throw new SomfyApiRequestException("API request was not successful", request.uri(), response.statusCode());
-            }
-            return response;
-        } catch (IOException | InterruptedException e) {
-            log.error("Could not send request to Somfy", e);
-            throw new RuntimeException("Could not send request to Somfy", e);
-        }
+    private HttpResponse<String> sendRequest(String endpoint, HttpRequest request) {
+        return sendRequest(endpoint, request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private <T> HttpResponse<T> sendRequest(String endpoint, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        return transport.send(endpoint, request, bodyHandler);
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendRequestAsync(String endpoint, HttpRequest request) {
+        return sendRequestAsync(endpoint, request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
     }
 
-    private String obtainValidAccessToken(SomfyToken somfyToken) throws SomfyTokenFetchException, SomfyTokenExpiredException {
-        if (somfyToken.isAccessTokenExpired()) {
-            this.somfyToken = somfyAuthenticator.refreshToken(somfyToken);
+    private <T> CompletableFuture<HttpResponse<T>> sendRequestAsync(String endpoint, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        return transport.sendAsync(endpoint, request, bodyHandler);
+    }
+
+    private <T> T fromJson(String endpoint, String json, Class<T> type) {
+        final long startNanos = System.nanoTime();
+        final T result = Json.fromJson(json, type);
+        metrics.onDeserialized(endpoint, Duration.ofNanos(System.nanoTime() - startNanos));
+        return result;
+    }
+
+    private <T> T fromJson(String endpoint, Reader json, Class<T> type) {
+        final long startNanos = System.nanoTime();
+        try (Reader reader = json) {
+            final T result = Json.fromJson(reader, type);
+            metrics.onDeserialized(endpoint, Duration.ofNanos(System.nanoTime() - startNanos));
+            return result;
+        } catch (IOException e) {
+            throw new JsonIOException(e);
         }
-        return somfyToken.getAccessToken();
+    }
+
+    private String obtainValidAccessToken() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        return somfyTokenHolder.getValidToken().getAccessToken();
+    }
+
+    private CompletableFuture<String> obtainValidAccessTokenAsync() {
+        return somfyTokenHolder.getValidTokenAsync().thenApply(SomfyToken::getAccessToken);
     }
 
     @NoArgsConstructor
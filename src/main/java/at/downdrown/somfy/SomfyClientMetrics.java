@@ -0,0 +1,73 @@
+package at.downdrown.somfy;
+
+import java.time.Duration;
+
+/**
+ * Listener that is notified about the requests a client sends to Somfy's Open API.
+ * All methods have empty default implementations, so only the interesting ones need to be implemented.
+ * Implementations must be thread safe and should return quickly since they are called on the request path.
+ * <p>
+ * The {@code endpoint} passed to the methods is a fixed name for the called operation
+ * (e.g. {@code getDeviceById}) and never contains IDs, so it is safe to use as metric tag.
+ *
+ * @author Manfred Huber
+ * @see at.downdrown.somfy.micrometer.MicrometerSomfyClientMetrics
+ */
+public interface SomfyClientMetrics {
+
+    /**
+     * A {@link SomfyClientMetrics} that ignores all notifications.
+     */
+    SomfyClientMetrics NOOP = new SomfyClientMetrics() {
+    };
+
+    /**
+     * Called once a request has completed, either successfully or after its last attempt failed.
+     *
+     * @param endpoint   the name of the called endpoint.
+     * @param statusCode the HTTP status of the last response or {@code 0} if no response has been received.
+     * @param attempts   how many times the request has been sent.
+     * @param latency    the time from the first attempt until completion, including waits between attempts.
+     * @param failure    the reason why the request failed or {@code null} if it was successful.
+     */
+    default void onRequestCompleted(String endpoint, int statusCode, int attempts, Duration latency, Throwable failure) {
+    }
+
+    /**
+     * Called when a request is going to be sent again, either because it was throttled or because of a transient error.
+     *
+     * @param endpoint   the name of the called endpoint.
+     * @param statusCode the HTTP status of the failed attempt or {@code 0} if no response has been received.
+     * @param delay      the time that is waited before the next attempt.
+     */
+    default void onRetry(String endpoint, int statusCode, Duration delay) {
+    }
+
+    /**
+     * Called once a response body has been received completely.
+     *
+     * @param endpoint the name of the called endpoint.
+     * @param bytes    the size of the response body as received.
+     */
+    default void onResponseBodyReceived(String endpoint, long bytes) {
+    }
+
+    /**
+     * Called once a response body has been deserialized.
+     *
+     * @param endpoint the name of the called endpoint.
+     * @param duration the time it took to deserialize the response body.
+     */
+    default void onDeserialized(String endpoint, Duration duration) {
+    }
+
+    /**
+     * Called once the {@code access_token} has been refreshed.
+     *
+     * @param latency the time the refresh took.
+     * @param failure the reason why the refresh failed or {@code null} if it was successful.
+     */
+    default void onTokenRefreshed(Duration latency, Throwable failure) {
+    }
+
+}
@@ -0,0 +1,73 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyClientPoolProperties;
+import at.downdrown.somfy.config.SomfyProperties;
+
+import java.net.http.HttpClient;
+import java.util.function.Function;
+
+/**
+ * Clients for many accounts, each with its own {@link SomfyToken}.
+ * <p>
+ * All clients of a pool share one {@link HttpClient} and its connections, while every account keeps
+ * its own rate limit according to {@link SomfyProperties#getRequestsPerSecond()}. Clients are created
+ * when an account is used and evicted once it has been idle for {@link SomfyClientPoolProperties#getIdleTimeout()},
+ * so resource usage grows with the number of active accounts only.
+ * <p>
+ * The token of an account is kept in the {@link TokenStore} the pool obtains for it, so a client created again
+ * after eviction continues with the last token. Callers should get the client from the pool for every use
+ * instead of holding on to it.
+ *
+ * @author Manfred Huber
+ * @see SomfyClientPoolProperties
+ */
+public interface SomfyClientPool {
+
+    /**
+     * @param tokenStores provides the {@link TokenStore} of an account by its ID.
+     */
+    static SomfyClientPool newClientPool(SomfyProperties properties, Function<String, TokenStore> tokenStores) {
+        return newClientPool(properties, SomfyClientPoolProperties.builder().build(), tokenStores);
+    }
+
+    static SomfyClientPool newClientPool(SomfyProperties properties, SomfyClientPoolProperties poolProperties, Function<String, TokenStore> tokenStores) {
+        return newClientPool(properties, poolProperties, tokenStores, properties.getHttpOptions().newHttpClient(null));
+    }
+
+    static SomfyClientPool newClientPool(SomfyProperties properties, SomfyClientPoolProperties poolProperties,
+                                         Function<String, TokenStore> tokenStores, HttpClient httpClient) {
+        return new SomfyClientPoolImpl(properties, poolProperties, tokenStores, httpClient, System::nanoTime);
+    }
+
+    /**
+     * Adds an account or replaces its token.
+     *
+     * @param accountId the ID of the account.
+     * @param token     the token of the account, e.g. as issued by {@link SomfyAuthenticator#issueToken(String)}.
+     */
+    void addAccount(String accountId, SomfyToken token);
+
+    /**
+     * Returns the client of an account.
+     *
+     * @param accountId the ID of the account.
+     * @return the client of the account.
+     * @throws IllegalStateException if the account has never been added and its {@link TokenStore} holds no token.
+     */
+    SomfyClient getClient(String accountId);
+
+    /**
+     * Returns the non-blocking client of an account.
+     *
+     * @see #getClient(String)
+     */
+    SomfyAsyncClient getAsyncClient(String accountId);
+
+    /**
+     * Evicts the client of an account, its token remains in the account's {@link TokenStore}.
+     *
+     * @param accountId the ID of the account.
+     */
+    void evict(String accountId);
+
+}
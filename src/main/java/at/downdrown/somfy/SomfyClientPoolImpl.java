@@ -0,0 +1,145 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyClientPoolProperties;
+import at.downdrown.somfy.config.SomfyProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+@Slf4j(topic = "somfyclient")
+final class SomfyClientPoolImpl implements SomfyClientPool {
+
+    private final SomfyProperties properties;
+    private final SomfyClientPoolProperties poolProperties;
+    private final Function<String, TokenStore> tokenStores;
+    private final HttpClient httpClient;
+    private final LongSupplier nanoClock;
+    private final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+    private volatile long nextEvictionNanos;
+
+    SomfyClientPoolImpl(SomfyProperties properties, SomfyClientPoolProperties poolProperties,
+                        Function<String, TokenStore> tokenStores, HttpClient httpClient, LongSupplier nanoClock) {
+        this.properties = Objects.requireNonNull(properties, "No properties present.");
+        this.poolProperties = Objects.requireNonNull(poolProperties, "No poolProperties present.");
+        this.tokenStores = Objects.requireNonNull(tokenStores, "No tokenStores present.");
+        this.httpClient = Objects.requireNonNull(httpClient, "No httpClient present.");
+        this.nanoClock = nanoClock;
+        this.nextEvictionNanos = nanoClock.getAsLong() + poolProperties.getIdleTimeout().toNanos();
+    }
+
+    @Override
+    public void addAccount(String accountId, SomfyToken token) {
+        Objects.requireNonNull(token, "No token present.");
+        final PooledClient pooledClient = acquire(accountId, token);
+        if (pooledClient.token != token) {
+            pooledClient.client.setToken(token);
+        }
+    }
+
+    @Override
+    public SomfyClient getClient(String accountId) {
+        return acquire(accountId, null).client;
+    }
+
+    @Override
+    public SomfyAsyncClient getAsyncClient(String accountId) {
+        return acquire(accountId, null).client;
+    }
+
+    @Override
+    public void evict(String accountId) {
+        final PooledClient pooledClient = clients.get(accountId);
+        if (pooledClient != null) {
+            evict(accountId, pooledClient);
+        }
+    }
+
+    private void evict(String accountId, PooledClient pooledClient) {
+        // the client might have been replaced by a new one for the same account in the meantime
+        if (clients.remove(accountId, pooledClient)) {
+            log.debug("Evicting client of account {}", accountId);
+            pooledClient.client.close();
+        }
+    }
+
+    /**
+     * Returns the number of clients currently kept by this pool.
+     */
+    int size() {
+        return clients.size();
+    }
+
+    private PooledClient acquire(String accountId, SomfyToken token) {
+        Objects.requireNonNull(accountId, "No accountId present.");
+        final long now = nanoClock.getAsLong();
+        evictIdleClients(now);
+
+        final PooledClient pooledClient = clients.computeIfAbsent(accountId, id -> newClient(id, token));
+        pooledClient.lastUsedNanos = now;
+
+        if (clients.size() > poolProperties.getMaxAccounts()) {
+            evictLeastRecentlyUsed(accountId);
+        }
+        return pooledClient;
+    }
+
+    private PooledClient newClient(String accountId, SomfyToken token) {
+        log.debug("Creating client for account {}", accountId);
+        final SomfyClientBuilder builder = new SomfyClientBuilder(properties)
+            .tokenStore(tokenStores.apply(accountId))
+            .httpClient(httpClient);
+        if (token != null) {
+            builder.token(token);
+        }
+        return new PooledClient((SomfyClientImpl) builder.build(), token);
+    }
+
+    /**
+     * Evicts all clients that have not been used within the idle timeout. The clients are only checked
+     * once per idle timeout, so that acquiring a client usually does not have to look at all of them.
+     */
+    private void evictIdleClients(long now) {
+        final long evictAt = nextEvictionNanos;
+        if (now - evictAt < 0) {
+            return;
+        }
+        final long idleTimeoutNanos = poolProperties.getIdleTimeout().toNanos();
+        nextEvictionNanos = now + idleTimeoutNanos;
+
+        clients.forEach((accountId, pooledClient) -> {
+            if (now - pooledClient.lastUsedNanos >= idleTimeoutNanos) {
+                evict(accountId, pooledClient);
+            }
+        });
+    }
+
+    private void evictLeastRecentlyUsed(String acquiredAccountId) {
+        Map.Entry<String, PooledClient> leastRecentlyUsed = null;
+        for (Map.Entry<String, PooledClient> entry : clients.entrySet()) {
+            if (!entry.getKey().equals(acquiredAccountId)
+                && (leastRecentlyUsed == null || entry.getValue().lastUsedNanos - leastRecentlyUsed.getValue().lastUsedNanos < 0)) {
+                leastRecentlyUsed = entry;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            evict(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+        }
+    }
+
+    private static final class PooledClient {
+
+        private final SomfyClientImpl client;
+        private final SomfyToken token;
+        private volatile long lastUsedNanos;
+
+        private PooledClient(SomfyClientImpl client, SomfyToken token) {
+            this.client = client;
+            this.token = token;
+        }
+    }
+}
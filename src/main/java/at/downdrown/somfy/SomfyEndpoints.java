@@ -0,0 +1,98 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+
+import java.net.URI;
+
+/**
+ * The endpoints of Somfy's Open API and authentication server.
+ * The configured base urls are validated once and all endpoints are precomputed as {@link UriTemplate}s.
+ *
+ * @author Manfred Huber
+ */
+final class SomfyEndpoints {
+
+    private final UriTemplate sites;
+    private final UriTemplate site;
+    private final UriTemplate devices;
+    private final UriTemplate device;
+    private final UriTemplate deviceExecution;
+    private final UriTemplate job;
+    private final String authorization;
+    private final String token;
+
+    SomfyEndpoints(SomfyProperties somfyProperties) {
+        final String apiUrl = validateBaseUrl("apiUrl", somfyProperties.getApiUrl());
+        final String authUrl = validateBaseUrl("authUrl", somfyProperties.getAuthUrl());
+
+        this.sites = new UriTemplate(apiUrl + "/site");
+        this.site = new UriTemplate(apiUrl + "/site/{siteId}");
+        this.devices = new UriTemplate(apiUrl + "/site/{siteId}/device");
+        this.device = new UriTemplate(apiUrl + "/device/{deviceId}");
+        this.deviceExecution = new UriTemplate(apiUrl + "/device/{deviceId}/exec");
+        this.job = new UriTemplate(apiUrl + "/job/{jobId}");
+        this.authorization = authUrl + "/auth";
+        this.token = authUrl + "/token";
+    }
+
+    URI sites() {
+        return sites.expand();
+    }
+
+    URI site(String siteId) {
+        return site.expand(siteId);
+    }
+
+    URI devices(String siteId) {
+        return devices.expand(siteId);
+    }
+
+    URI device(String deviceId) {
+        return device.expand(deviceId);
+    }
+
+    URI deviceExecution(String deviceId) {
+        return deviceExecution.expand(deviceId);
+    }
+
+    URI job(String jobId) {
+        return job.expand(jobId);
+    }
+
+    /**
+     * The authorization endpoint, without query.
+     */
+    String authorization() {
+        return authorization;
+    }
+
+    /**
+     * The token endpoint, without query.
+     */
+    String token() {
+        return token;
+    }
+
+    /**
+     * Makes sure the base url is an absolute http(s) url without query or fragment
+     * and strips a trailing slash, so paths can simply be appended.
+     */
+    private static String validateBaseUrl(String name, String baseUrl) {
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("No " + name + " present.");
+        }
+
+        final URI uri;
+        try {
+            uri = URI.create(baseUrl);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The " + name + " is not a valid URL: " + baseUrl, e);
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) && !"http".equalsIgnoreCase(uri.getScheme())
+            || uri.getHost() == null || uri.getRawQuery() != null || uri.getRawFragment() != null) {
+            throw new IllegalArgumentException("The " + name + " must be an absolute http(s) URL without query: " + baseUrl);
+        }
+
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+}
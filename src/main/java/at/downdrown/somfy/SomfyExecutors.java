@@ -0,0 +1,53 @@
+package at.downdrown.somfy;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for {@link ExecutorService}s that can be passed to {@link SomfyClientBuilder#executor(java.util.concurrent.Executor)}.
+ * <p>
+ * This library is a multi-release jar: on Java 21 and newer {@link #newThreadPerTaskExecutor()} creates a
+ * new virtual thread for every task, so tens of thousands of blocking calls can run concurrently without sizing a pool.
+ * The Java 21 version is only compiled when the library itself is built with JDK 21 or newer, a warning is logged once
+ * if this version is used on a JVM that supports virtual threads.
+ *
+ * @author Manfred Huber
+ */
+@Slf4j(topic = "somfyclient")
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SomfyExecutors {
+
+    private static final AtomicBoolean FALLBACK_LOGGED = new AtomicBoolean();
+
+    /**
+     * Whether {@link #newThreadPerTaskExecutor()} creates virtual threads on the running JVM.
+     */
+    public static boolean isVirtualThreadPerTask() {
+        return false;
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that runs every task on its own thread.
+     * On Java 21 and newer these are virtual threads, on older versions daemon platform threads
+     * of a cached thread pool are used.
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        if (Runtime.version().feature() >= 21 && FALLBACK_LOGGED.compareAndSet(false, true)) {
+            log.warn("Running on Java {}, but this build of the library has no virtual thread support, using platform threads instead",
+                Runtime.version().feature());
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "somfy-client-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -0,0 +1,313 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.RetryPolicy;
+import at.downdrown.somfy.config.SomfyProperties;
+import at.downdrown.somfy.exception.SomfyApiRequestException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+
+/**
+ * Sends the requests of a client to Somfy's Open API.
+ * Requests are queued by a {@link TokenBucketRateLimiter} and requests that were throttled by Somfy
+ * ({@code 429 Too Many Requests} or {@code 503 Service Unavailable}) are resent once the time
+ * requested by the {@code Retry-After} header has passed. Like other failures, a {@code 503} is only resent
+ * for requests that may be retried, so commands are not executed twice unless executions are retried.
+ * Requests that failed because of a transient error are retried according to the {@link RetryPolicy}.
+ *
+ * @author Manfred Huber
+ */
+@Slf4j(topic = "somfyclient")
+final class SomfyHttpTransport {
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final Duration INITIAL_THROTTLE_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_THROTTLE_BACKOFF = Duration.ofMinutes(1);
+
+    // the jdk.jfr module is missing in trimmed runtimes, requests are not recorded there
+    private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private final HttpClient httpClient;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final int maxThrottledRetries;
+    private final RetryPolicy retryPolicy;
+    private final SomfyClientMetrics metrics;
+    private final Executor executor;
+
+    SomfyHttpTransport(SomfyProperties somfyProperties, HttpClient httpClient, SomfyClientMetrics metrics, Executor executor) {
+        this.httpClient = httpClient;
+        this.rateLimiter = somfyProperties.getRequestsPerSecond() > 0
+            ? new TokenBucketRateLimiter(somfyProperties.getRequestsPerSecond(), somfyProperties.getRequestBurst(), System::nanoTime)
+            : null;
+        this.maxThrottledRetries = somfyProperties.getMaxThrottledRetries();
+        this.retryPolicy = somfyProperties.getRetryPolicy();
+        this.metrics = metrics;
+        this.executor = executor;
+    }
+
+    <T> HttpResponse<T> send(String endpoint, HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler) {
+        final Exchange exchange = new Exchange(endpoint, request);
+        final HttpResponse.BodyHandler<T> bodyHandler = countingBodyHandler(endpoint, responseBodyHandler);
+        try {
+            while (true) {
+                TimeUnit.NANOSECONDS.sleep(reservePermit());
+                exchange.attempts++;
+
+                final HttpResponse<T> response;
+                try {
+                    response = httpClient.send(request, bodyHandler);
+                    exchange.statusCode = response.statusCode();
+                } catch (IOException e) {
+                    exchange.statusCode = 0;
+                    if (exchange.shouldRetryFailure()) {
+                        TimeUnit.NANOSECONDS.sleep(retryDelay(exchange, e));
+                        continue;
+                    }
+                    throw new SomfyApiRequestException("Could not send request to Somfy", e, request.uri(), 0);
+                }
+
+                if (exchange.shouldRetryThrottled(response)) {
+                    TimeUnit.NANOSECONDS.sleep(backOff(exchange, response));
+                    continue;
+                }
+                if (exchange.shouldRetryStatus(response)) {
+                    TimeUnit.NANOSECONDS.sleep(retryDelay(exchange, null));
+                    continue;
+                }
+
+                final HttpResponse<T> checkedResponse = checkResponse(request, response);
+                onCompleted(exchange, null);
+                return checkedResponse;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onCompleted(exchange, e);
+            log.error("Could not send request to Somfy", e);
+            throw new SomfyApiRequestException("Interrupted while sending request to Somfy", e, request.uri(), 0);
+        } catch (RuntimeException e) {
+            onCompleted(exchange, e);
+            log.error("Could not send request to Somfy", e);
+            throw e;
+        }
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(String endpoint, HttpRequest request, HttpResponse.BodyHandler<T> responseBodyHandler) {
+        final Exchange exchange = new Exchange(endpoint, request);
+        return sendAsync(exchange, countingBodyHandler(endpoint, responseBodyHandler))
+            .whenComplete((response, e) -> {
+                final Throwable failure = Futures.unwrap(e);
+                onCompleted(exchange, failure);
+                if (failure != null) {
+                    log.error("Could not send request to Somfy", failure);
+                }
+            });
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(Exchange exchange, HttpResponse.BodyHandler<T> bodyHandler) {
+        final HttpRequest request = exchange.request;
+        return delay(reservePermit())
+            .thenCompose(ignored -> {
+                exchange.attempts++;
+                return httpClient.sendAsync(request, bodyHandler);
+            })
+            .handle((response, e) -> {
+                if (e != null) {
+                    final Throwable cause = Futures.unwrap(e);
+                    exchange.statusCode = 0;
+                    if (cause instanceof IOException && exchange.shouldRetryFailure()) {
+                        return delay(retryDelay(exchange, cause)).thenCompose(retry -> sendAsync(exchange, bodyHandler));
+                    }
+                    return CompletableFuture.<HttpResponse<T>>failedFuture(cause instanceof IOException
+                        ? new SomfyApiRequestException("Could not send request to Somfy", cause, request.uri(), 0)
+                        : cause);
+                }
+                exchange.statusCode = response.statusCode();
+                if (exchange.shouldRetryThrottled(response)) {
+                    return delay(backOff(exchange, response)).thenCompose(retry -> sendAsync(exchange, bodyHandler));
+                }
+                if (exchange.shouldRetryStatus(response)) {
+                    return delay(retryDelay(exchange, null)).thenCompose(retry -> sendAsync(exchange, bodyHandler));
+                }
+                return CompletableFuture.completedFuture(checkResponse(request, response));
+            })
+            .thenCompose(Function.identity());
+    }
+
+    private void onCompleted(Exchange exchange, Throwable failure) {
+        final long latencyNanos = System.nanoTime() - exchange.startNanos;
+        log.debug("{} {} completed with HTTP {} after {} attempt(s)", exchange.request.method(), exchange.request.uri(), exchange.statusCode, exchange.attempts);
+
+        metrics.onRequestCompleted(exchange.endpoint, exchange.statusCode, exchange.attempts, Duration.ofNanos(latencyNanos), failure);
+
+        final SomfyRequestEvent event = exchange.event;
+        if (event != null && event.shouldCommit()) {
+            event.endpoint = exchange.endpoint;
+            event.method = exchange.request.method();
+            event.uri = exchange.request.uri().toString();
+            event.statusCode = exchange.statusCode;
+            event.attempts = exchange.attempts;
+            event.failure = failure != null ? failure.toString() : null;
+            event.commit();
+        }
+    }
+
+    private <T> HttpResponse.BodyHandler<T> countingBodyHandler(String endpoint, HttpResponse.BodyHandler<T> bodyHandler) {
+        if (metrics == SomfyClientMetrics.NOOP) {
+            return bodyHandler;
+        }
+        return responseInfo -> new CountingBodySubscriber<>(bodyHandler.apply(responseInfo),
+            bytes -> metrics.onResponseBodyReceived(endpoint, bytes));
+    }
+
+    private <T> HttpResponse<T> checkResponse(HttpRequest request, HttpResponse<T> response) {
+        // 304 Not Modified is only expected for conditional requests, which resolve it themselves
+        if (response.statusCode() != HTTP_OK && !(response.statusCode() == HTTP_NOT_MODIFIED && isConditional(request))) {
+            throw new SomfyApiRequestException("API request was not successful", request.uri(), response.statusCode());
+        }
+        if (rateLimiter != null) {
+            rateLimiter.onSuccess();
+        }
+        return response;
+    }
+
+    private static boolean isConditional(HttpRequest request) {
+        return request.headers().firstValue("If-None-Match").isPresent()
+            || request.headers().firstValue("If-Modified-Since").isPresent();
+    }
+
+        private long reservePermit() {
+        return rateLimiter != null ? rateLimiter.reserve() : 0;
+    }
+
+    /**
+     * Determines how long to wait before a throttled request is sent again.
+     * If a rate limiter is present the limiter is paused instead and the wait happens
+     * when the next permit is reserved.
+     *
+     * @return the time in nanoseconds to wait before resending the request.
+     */
+    private long backOff(Exchange exchange, HttpResponse<?> response) {
+        final Duration backOff = retryAfter(response)
+            .orElseGet(() -> exponentialBackOff(exchange.throttledRetries - 1));
+
+        log.warn("Request to {} was throttled with HTTP {}, retrying in {} ms", exchange.request.uri(), response.statusCode(), backOff.toMillis());
+        metrics.onRetry(exchange.endpoint, response.statusCode(), backOff);
+
+        if (rateLimiter != null) {
+            rateLimiter.onThrottled(backOff);
+            return 0;
+        }
+        return backOff.toNanos();
+    }
+
+    /**
+     * Determines how long to wait before a request that failed with a transient error is sent again.
+     *
+     * @return the time in nanoseconds to wait before resending the request.
+     */
+    private long retryDelay(Exchange exchange, Throwable failure) {
+        final Duration retryDelay = retryPolicy.delayBeforeRetry(exchange.failedAttempts);
+        log.warn("Request to {} failed (attempt {} of {}), retrying in {} ms",
+            exchange.request.uri(), exchange.failedAttempts, retryPolicy.getMaxAttempts(), retryDelay.toMillis(), failure);
+        metrics.onRetry(exchange.endpoint, failure != null ? 0 : exchange.statusCode, retryDelay);
+        return retryDelay.toNanos();
+    }
+
+    private static Duration exponentialBackOff(int attempt) {
+        final Duration backOff = INITIAL_THROTTLE_BACKOFF.multipliedBy(1L << Math.min(attempt, 16));
+        return backOff.compareTo(MAX_THROTTLE_BACKOFF) > 0 ? MAX_THROTTLE_BACKOFF : backOff;
+    }
+
+    /**
+     * Reads the {@code Retry-After} header which either contains the seconds to wait or a HTTP-date.
+     */
+    static Optional<Duration> retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+            .map(String::trim)
+            .flatMap(retryAfter -> {
+                try {
+                    return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter))));
+                } catch (NumberFormatException e) {
+                    try {
+                        final Duration untilRetry = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME));
+                        return Optional.of(untilRetry.isNegative() ? Duration.ZERO : untilRetry);
+                    } catch (DateTimeParseException ignored) {
+                        return Optional.empty();
+                    }
+                }
+            })
+            .map(retryAfter -> retryAfter.compareTo(MAX_THROTTLE_BACKOFF) > 0 ? MAX_THROTTLE_BACKOFF : retryAfter);
+    }
+
+    private boolean isRetryable(HttpRequest request) {
+        return "GET".equals(request.method()) || retryPolicy.isRetryExecutions();
+    }
+
+    private CompletableFuture<Void> delay(long nanos) {
+        if (nanos <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS, executor));
+    }
+
+    /**
+     * Keeps track of the attempts of a single request.
+     */
+    private final class Exchange {
+
+        private final String endpoint;
+        private final HttpRequest request;
+        private final long startNanos = System.nanoTime();
+        private final SomfyRequestEvent event;
+        private int attempts;
+        private int throttledRetries;
+        private int failedAttempts;
+        private int statusCode;
+
+        private Exchange(String endpoint, HttpRequest request) {
+            this.endpoint = endpoint;
+            this.request = request;
+            this.event = JFR_AVAILABLE ? SomfyRequestEvent.beginIfEnabled() : null;
+        }
+
+        private boolean shouldRetryFailure() {
+            if (isRetryable(request) && failedAttempts + 1 < retryPolicy.getMaxAttempts()) {
+                failedAttempts++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean shouldRetryThrottled(HttpResponse<?> response) {
+            // a 503 may also mean that a command has reached the device, so it is only resent if the request is retryable
+            final boolean throttled = response.statusCode() == HTTP_TOO_MANY_REQUESTS
+                || response.statusCode() == HTTP_UNAVAILABLE && isRetryable(request);
+            if (throttled && throttledRetries < maxThrottledRetries) {
+                throttledRetries++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean shouldRetryStatus(HttpResponse<?> response) {
+            return retryPolicy.isRetryableStatusCode(response.statusCode()) && shouldRetryFailure();
+        }
+    }
+}
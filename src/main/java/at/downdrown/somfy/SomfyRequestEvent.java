@@ -0,0 +1,57 @@
+package at.downdrown.somfy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event that is recorded for every request sent to Somfy's Open API.
+ * The duration of the event covers all attempts of the request, including the time
+ * spent waiting for the rate limiter and between retries.
+ * <p>
+ * Events are only created while a recording has enabled them, see {@link #beginIfEnabled()}.
+ *
+ * @author Manfred Huber
+ */
+@Name("at.downdrown.somfy.Request")
+@Label("Somfy API Request")
+@Description("A request sent to Somfy's Open API")
+@Category("Somfy Open API Client")
+@StackTrace(false)
+final class SomfyRequestEvent extends jdk.jfr.Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Failure")
+    String failure;
+
+    private static final EventType EVENT_TYPE = EventType.getEventType(SomfyRequestEvent.class);
+
+    /**
+     * @return a begun event or {@code null} if no recording has enabled this event.
+     */
+    static SomfyRequestEvent beginIfEnabled() {
+        if (!EVENT_TYPE.isEnabled()) {
+            return null;
+        }
+        final SomfyRequestEvent event = new SomfyRequestEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Getter;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Builder
@@ -21,4 +22,8 @@ public final class SomfyToken implements Serializable {
         return accessTokenExpiresAt.isBefore(LocalDateTime.now());
     }
 
+    public boolean isAccessTokenExpiringWithin(Duration leeway) {
+        return accessTokenExpiresAt.minus(leeway).isBefore(LocalDateTime.now());
+    }
+
 }
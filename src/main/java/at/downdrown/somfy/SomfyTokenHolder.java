@@ -0,0 +1,278 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the current {@link SomfyToken} of a client and makes sure that
+ * only one refresh is running at a time. Concurrent callers that encounter an
+ * expired {@code access_token} wait for the same in-flight refresh.
+ * <p>
+ * Additionally the token is refreshed proactively in the background shortly before
+ * it expires, so that requests usually do not have to wait for a refresh at all.
+ * <p>
+ * Every new token is written to the {@link TokenStore}. Before a token is refreshed, the store is checked
+ * for a newer token that another client sharing the store has already obtained.
+ *
+ * @author Manfred Huber
+ */
+@Slf4j(topic = "somfyclient")
+final class SomfyTokenHolder {
+
+    private static final Duration MIN_RESCHEDULE_DELAY = Duration.ofSeconds(1);
+
+    private final SomfyAuthenticator somfyAuthenticator;
+    private final Duration refreshLeeway;
+    private final SomfyClientMetrics metrics;
+    private final Executor executor;
+    private final TokenStore tokenStore;
+
+    private SomfyToken somfyToken;
+    private CompletableFuture<SomfyToken> refreshInFlight;
+    private CompletableFuture<Void> scheduledRefresh;
+    private boolean closed;
+
+    SomfyTokenHolder(SomfyAuthenticator somfyAuthenticator, Duration refreshLeeway, SomfyToken somfyToken) {
+        this(somfyAuthenticator, refreshLeeway, somfyToken, TokenStore.inMemory(), SomfyClientMetrics.NOOP, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param somfyToken the initial token, may be {@code null} if the {@code tokenStore} already holds one.
+     *                   If both are present, the one that expires last is used.
+     */
+    SomfyTokenHolder(SomfyAuthenticator somfyAuthenticator, Duration refreshLeeway, SomfyToken somfyToken,
+                     TokenStore tokenStore, SomfyClientMetrics metrics, Executor executor) {
+        this.somfyAuthenticator = somfyAuthenticator;
+        this.refreshLeeway = refreshLeeway;
+        this.tokenStore = tokenStore;
+        this.metrics = metrics;
+        this.executor = executor;
+
+        final SomfyToken storedToken = tokenStore.load().orElse(null);
+        if (storedToken == null && somfyToken == null) {
+            throw new IllegalStateException("No token present, neither passed nor stored.");
+        }
+        if (somfyToken == null || storedToken != null && !storedToken.getAccessTokenExpiresAt().isBefore(somfyToken.getAccessTokenExpiresAt())) {
+            log.debug("Using stored token that expires at {}", storedToken.getAccessTokenExpiresAt());
+            updateToken(storedToken);
+        } else {
+            setToken(somfyToken);
+        }
+    }
+
+    void setToken(SomfyToken somfyToken) {
+        updateToken(somfyToken);
+        persistToken(somfyToken);
+    }
+
+    private synchronized void updateToken(SomfyToken somfyToken) {
+        this.somfyToken = somfyToken;
+        scheduleProactiveRefresh(somfyToken);
+    }
+
+    /**
+     * Stops refreshing the token proactively. Tokens are still refreshed when they are requested after expiry.
+     */
+    synchronized void close() {
+        closed = true;
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    /**
+     * Returns a {@link SomfyToken} with a valid {@code access_token}, blocking the
+     * calling thread if the current token has to be refreshed first.
+     */
+    SomfyToken getValidToken() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+        final SomfyToken staleToken;
+        final CompletableFuture<SomfyToken> refresh;
+        synchronized (this) {
+            if (!somfyToken.isAccessTokenExpired()) {
+                return somfyToken;
+            }
+            if (refreshInFlight != null) {
+                refresh = refreshInFlight;
+                staleToken = null;
+            } else {
+                refresh = refreshInFlight = new CompletableFuture<>();
+                staleToken = somfyToken;
+            }
+        }
+
+        if (staleToken != null) {
+            final SomfyToken storedToken = loadNewerToken(staleToken);
+            if (storedToken != null) {
+                completeWithStoredToken(refresh, staleToken, storedToken);
+                return Futures.await(refresh);
+            }
+
+            final long startNanos = System.nanoTime();
+            try {
+                completeRefresh(refresh, staleToken, somfyAuthenticator.refreshToken(staleToken), null, startNanos);
+            } catch (SomfyTokenFetchException | SomfyTokenExpiredException | RuntimeException e) {
+                completeRefresh(refresh, staleToken, null, e, startNanos);
+            }
+        }
+
+        return Futures.await(refresh);
+    }
+
+    /**
+     * Returns a future completing with a {@link SomfyToken} with a valid {@code access_token}.
+     */
+    CompletableFuture<SomfyToken> getValidTokenAsync() {
+        synchronized (this) {
+            if (!somfyToken.isAccessTokenExpired()) {
+                return CompletableFuture.completedFuture(somfyToken);
+            }
+            if (refreshInFlight != null) {
+                return refreshInFlight;
+            }
+        }
+        return refreshAsync();
+    }
+
+    private CompletableFuture<SomfyToken> refreshAsync() {
+        final SomfyToken staleToken;
+        final CompletableFuture<SomfyToken> refresh;
+        synchronized (this) {
+            if (refreshInFlight != null) {
+                return refreshInFlight;
+            }
+            refresh = refreshInFlight = new CompletableFuture<>();
+            staleToken = somfyToken;
+        }
+
+        final SomfyToken storedToken = loadNewerToken(staleToken);
+        if (storedToken != null) {
+            completeWithStoredToken(refresh, staleToken, storedToken);
+            return refresh;
+        }
+
+        final long startNanos = System.nanoTime();
+        try {
+            renewTokenAsync(staleToken)
+                .whenComplete((refreshedToken, e) -> completeRefresh(refresh, staleToken, refreshedToken, e, startNanos));
+        } catch (RuntimeException e) {
+            // the in-flight refresh has to end even if the refresh could not be started, otherwise all callers wait forever
+            completeRefresh(refresh, staleToken, null, e, startNanos);
+        }
+
+        return refresh;
+    }
+
+    /**
+     * Refreshes the token without asking the authenticator whether it is expiring yet, as the holder only refreshes
+     * tokens that are expired or due for the proactive refresh. Other authenticators decide on their own, if they
+     * return the same token, the proactive refresh is scheduled again.
+     */
+    private CompletableFuture<SomfyToken> renewTokenAsync(SomfyToken staleToken) {
+        if (somfyAuthenticator instanceof SomfyAuthenticatorImpl) {
+            return ((SomfyAuthenticatorImpl) somfyAuthenticator).renewTokenAsync(staleToken);
+        }
+        return somfyAuthenticator.refreshTokenAsync(staleToken);
+    }
+
+    private void completeRefresh(CompletableFuture<SomfyToken> refresh, SomfyToken staleToken, SomfyToken refreshedToken, Throwable e, long startNanos) {
+        metrics.onTokenRefreshed(Duration.ofNanos(System.nanoTime() - startNanos), e == null ? null : Futures.unwrap(e));
+        if (replaceToken(refresh, staleToken, e == null ? refreshedToken : null)) {
+            persistToken(refreshedToken);
+        }
+        if (e != null) {
+            refresh.completeExceptionally(Futures.unwrap(e));
+        } else {
+            refresh.complete(refreshedToken);
+        }
+    }
+
+    private void completeWithStoredToken(CompletableFuture<SomfyToken> refresh, SomfyToken staleToken, SomfyToken storedToken) {
+        log.debug("Using token from store instead of refreshing");
+        replaceToken(refresh, staleToken, storedToken);
+        refresh.complete(storedToken);
+    }
+
+    /**
+     * Ends the given in-flight refresh and replaces the current token with the {@code newToken},
+     * unless the token has been replaced in the meantime.
+     *
+     * @return whether the token has been replaced.
+     */
+    private synchronized boolean replaceToken(CompletableFuture<SomfyToken> refresh, SomfyToken staleToken, SomfyToken newToken) {
+        if (refreshInFlight == refresh) {
+            refreshInFlight = null;
+        }
+        if (newToken != null && somfyToken == staleToken && newToken != staleToken) {
+            updateToken(newToken);
+            return true;
+        }
+        if (newToken == staleToken && somfyToken == staleToken) {
+            // the token has not been refreshed, so the proactive refresh must not end here
+            scheduleProactiveRefresh(staleToken, MIN_RESCHEDULE_DELAY);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the stored token if it is not the {@code staleToken} and does not need to be refreshed itself.
+     */
+    private SomfyToken loadNewerToken(SomfyToken staleToken) {
+        try {
+            return tokenStore.load()
+                .filter(storedToken -> !storedToken.getAccessToken().equals(staleToken.getAccessToken()))
+                .filter(storedToken -> !storedToken.isAccessTokenExpiringWithin(refreshLeeway))
+                .orElse(null);
+        } catch (RuntimeException e) {
+            log.warn("Could not load token from store, refreshing it instead", e);
+            return null;
+        }
+    }
+
+    private void persistToken(SomfyToken somfyToken) {
+        try {
+            tokenStore.store(somfyToken);
+        } catch (RuntimeException e) {
+            log.warn("Could not store token, it will be lost on restart", e);
+        }
+    }
+
+    private void scheduleProactiveRefresh(SomfyToken somfyToken) {
+        scheduleProactiveRefresh(somfyToken, Duration.ZERO);
+    }
+
+    private void scheduleProactiveRefresh(SomfyToken somfyToken, Duration minDelay) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+
+        // an expired token will be refreshed by the next request anyway
+        if (closed || somfyToken.isAccessTokenExpired()) {
+            return;
+        }
+
+        final LocalDateTime refreshAt = somfyToken.getAccessTokenExpiresAt().minus(refreshLeeway);
+        // rounded up, so the refresh never runs before the token is actually due
+        final long delayNanos = Math.max(minDelay.toNanos(), Duration.between(LocalDateTime.now(), refreshAt).toNanos());
+        final long delayMillis = TimeUnit.NANOSECONDS.toMillis(delayNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+
+        log.debug("Scheduling proactive token refresh in {} ms", delayMillis);
+
+        scheduledRefresh = CompletableFuture.runAsync(
+            () -> refreshAsync().whenComplete((refreshedToken, e) -> {
+                if (e != null) {
+                    log.warn("Proactive token refresh failed, will refresh on next request", e);
+                }
+            }),
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, executor));
+    }
+}
@@ -0,0 +1,90 @@
+package at.downdrown.somfy;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket that hands out reservations instead of rejecting requests.
+ * Callers ask for a permit and are told how long they have to wait until they may send their request,
+ * so bursts are queued rather than failed.
+ * <p>
+ * The rate adapts to the feedback of the server: when the server throttles a request the rate
+ * is halved and the bucket is paused for the requested time, every successful request
+ * slowly raises the rate back to the configured one.
+ *
+ * @author Manfred Huber
+ */
+final class TokenBucketRateLimiter {
+
+    private static final double MIN_RATE_FRACTION = 0.05;
+    private static final double RECOVERY_FRACTION = 0.05;
+
+    private final double configuredPermitsPerSecond;
+    private final double maxPermits;
+    private final LongSupplier nanoClock;
+
+    private double permitsPerSecond;
+    private double storedPermits;
+    private long nextFreeTicketNanos;
+
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        this.configuredPermitsPerSecond = permitsPerSecond;
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, burst);
+        this.storedPermits = maxPermits;
+        this.nanoClock = nanoClock;
+        this.nextFreeTicketNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Reserves a single permit.
+     *
+     * @return the time in nanoseconds the caller has to wait before using the permit.
+     */
+    synchronized long reserve() {
+        final long now = nanoClock.getAsLong();
+        refill(now);
+
+        final long waitNanos = Math.max(0, nextFreeTicketNanos - now);
+        final double spentPermits = Math.min(1, storedPermits);
+        storedPermits -= spentPermits;
+        nextFreeTicketNanos += (long) ((1 - spentPermits) * intervalNanos());
+        return waitNanos;
+    }
+
+    /**
+     * Called when the server throttled a request. Halves the rate and stops handing out
+     * permits until {@code retryAfter} has passed.
+     */
+    synchronized void onThrottled(Duration retryAfter) {
+        final long now = nanoClock.getAsLong();
+        refill(now);
+        permitsPerSecond = Math.max(configuredPermitsPerSecond * MIN_RATE_FRACTION, permitsPerSecond / 2);
+        storedPermits = 0;
+        nextFreeTicketNanos = Math.max(nextFreeTicketNanos, now + retryAfter.toNanos());
+    }
+
+    /**
+     * Called when the server accepted a request. Raises the rate back towards the configured one.
+     */
+    synchronized void onSuccess() {
+        if (permitsPerSecond < configuredPermitsPerSecond) {
+            permitsPerSecond = Math.min(configuredPermitsPerSecond, permitsPerSecond + configuredPermitsPerSecond * RECOVERY_FRACTION);
+        }
+    }
+
+    synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private void refill(long now) {
+        if (now > nextFreeTicketNanos) {
+            storedPermits = Math.min(maxPermits, storedPermits + (now - nextFreeTicketNanos) / (double) intervalNanos());
+            nextFreeTicketNanos = now;
+        }
+    }
+
+    private long intervalNanos() {
+        return (long) (Duration.ofSeconds(1).toNanos() / permitsPerSecond);
+    }
+}
@@ -0,0 +1,50 @@
+package at.downdrown.somfy;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Persists the {@link SomfyToken} of a client, so it survives restarts and can be shared between instances.
+ * <p>
+ * A client loads the token from its store when it is built and writes every new token to it.
+ * Before refreshing an expired token, the client checks the store for a newer token that another
+ * instance has already obtained and uses that one instead.
+ * Implementations must be thread safe.
+ *
+ * @author Manfred Huber
+ * @see SomfyClientBuilder#tokenStore(TokenStore)
+ */
+public interface TokenStore {
+
+    /**
+     * Creates a {@link TokenStore} that only keeps the token in memory.
+     */
+    static TokenStore inMemory() {
+        return new InMemoryTokenStore();
+    }
+
+    /**
+     * Creates a {@link TokenStore} that keeps the token in the file at the given {@code path}.
+     * The file is replaced atomically on every write, so readers never see a partially written token.
+     *
+     * @param path the file the token is stored in, it is created on the first write.
+     */
+    static TokenStore ofFile(Path path) {
+        return new FileTokenStore(path);
+    }
+
+    /**
+     * Loads the stored token.
+     *
+     * @return the stored token or an empty {@link Optional} if no token has been stored yet.
+     */
+    Optional<SomfyToken> load();
+
+    /**
+     * Stores the given token, replacing any previously stored token.
+     *
+     * @param token the token that should be stored.
+     */
+    void store(SomfyToken token);
+
+}
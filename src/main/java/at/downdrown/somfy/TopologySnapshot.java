@@ -0,0 +1,146 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.Site;
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link Site}s of an account and their {@link Device}s at a certain point in time.
+ * <p>
+ * A snapshot can be written to a compact binary file and read again on the next start, so a service can
+ * serve its known topology right away instead of waiting for Somfy's Open API:
+ *
+ * <pre>{@code
+ * TopologySnapshot.read(path).ifPresent(cachingClient::preload);
+ *
+ * TopologySnapshot.captureAsync(asyncClient).thenAccept(snapshot -> {
+ *     cachingClient.preload(snapshot);
+ *     snapshot.write(path);
+ * });
+ * }</pre>
+ *
+ * @author Manfred Huber
+ * @see CachingSomfyClient#preload(TopologySnapshot)
+ */
+public final class TopologySnapshot {
+
+    private final Instant createdAt;
+    private final List<Site> sites;
+    private final Map<String, List<Device>> devicesBySiteId;
+
+    TopologySnapshot(Instant createdAt, List<Site> sites, Map<String, List<Device>> devicesBySiteId) {
+        this.createdAt = Objects.requireNonNull(createdAt, "No createdAt present.");
+        this.sites = List.copyOf(sites);
+        this.devicesBySiteId = new LinkedHashMap<>();
+        devicesBySiteId.forEach((siteId, devices) -> this.devicesBySiteId.put(siteId, List.copyOf(devices)));
+    }
+
+    /**
+     * Creates a snapshot of the given {@code sites} and their {@code devicesBySiteId}.
+     */
+    public static TopologySnapshot of(List<Site> sites, Map<String, List<Device>> devicesBySiteId) {
+        return new TopologySnapshot(Instant.now(), sites, devicesBySiteId);
+    }
+
+    /**
+     * Lists all {@link Site}s and their {@link Device}s.
+     */
+    public static TopologySnapshot capture(SomfyClient client) throws SomfyTokenExpiredException, SomfyTokenFetchException {
+        final List<Site> sites = client.listSites();
+        final Map<String, List<Device>> devicesBySiteId = new LinkedHashMap<>();
+        for (Site site : sites) {
+            devicesBySiteId.put(site.getId(), client.listDevices(site.getId()));
+        }
+        return of(sites, devicesBySiteId);
+    }
+
+    /**
+     * Lists all {@link Site}s and the {@link Device}s of all sites concurrently.
+     */
+    public static CompletableFuture<TopologySnapshot> captureAsync(SomfyAsyncClient client) {
+        return client.listSitesAsync().thenCompose(sites -> {
+            final Map<String, CompletableFuture<List<Device>>> devicesBySiteId = sites.stream()
+                .collect(Collectors.toMap(Site::getId, site -> client.listDevicesAsync(site.getId()), (a, b) -> a, LinkedHashMap::new));
+
+            return CompletableFuture.allOf(devicesBySiteId.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    final Map<String, List<Device>> devices = new LinkedHashMap<>();
+                    devicesBySiteId.forEach((siteId, future) -> devices.put(siteId, future.join()));
+                    return of(sites, devices);
+                });
+        });
+    }
+
+    /**
+     * Reads a snapshot that has been written by {@link #write(Path)}. The file is mapped into memory,
+     * so it is decoded without copying it into an intermediate buffer first.
+     *
+     * @param path the snapshot file.
+     * @return the snapshot or an empty {@link Optional} if there is no such file.
+     * @throws UncheckedIOException if the file could not be read or is no valid snapshot.
+     */
+    public static Optional<TopologySnapshot> read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(TopologySnapshotCodec.decode(buffer));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read topology snapshot from " + path, e);
+        }
+    }
+
+    /**
+     * Writes this snapshot to the given {@code path}. The file is replaced atomically,
+     * so readers never see a partially written snapshot.
+     *
+     * @throws UncheckedIOException if the file could not be written.
+     */
+    public void write(Path path) {
+        try {
+            AtomicFiles.write(path.toAbsolutePath(), TopologySnapshotCodec.encode(this));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write topology snapshot to " + path, e);
+        }
+    }
+
+    /**
+     * @return when the topology has been listed.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Site> getSites() {
+        return sites;
+    }
+
+    /**
+     * @return the {@link Device}s of the {@link Site} with the given {@code siteId} or an empty list.
+     */
+    public List<Device> getDevices(String siteId) {
+        return devicesBySiteId.getOrDefault(siteId, List.of());
+    }
+
+    Map<String, List<Device>> getDevicesBySiteId() {
+        return devicesBySiteId;
+    }
+
+}
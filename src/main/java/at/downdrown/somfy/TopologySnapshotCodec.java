@@ -0,0 +1,340 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceStates;
+import at.downdrown.somfy.domain.DeviceType;
+import at.downdrown.somfy.domain.Site;
+import at.downdrown.somfy.domain.State;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Binary encoding of a {@link TopologySnapshot}.
+ * <p>
+ * The layout is: magic number, format version, creation time, a table of all distinct strings followed by the
+ * sites and devices, which only reference strings by their position in the table. Capability, category and type
+ * identifiers repeat for every device, so the table keeps snapshots of large sites small. Enums are stored by
+ * their identification instead of their ordinal, so snapshots stay readable when new constants are added.
+ * All counts and string references are unsigned variable-length integers, string reference {@code 0} is {@code null}.
+ * Integer state values are zigzag encoded variable-length integers, other numbers are stored as {@code double}.
+ * Version 2 added integer state values, snapshots of version 1 can still be read.
+ *
+ * @author Manfred Huber
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class TopologySnapshotCodec {
+
+    private static final int MAGIC = 0x534d4654;
+    private static final int VERSION = 2;
+    private static final int MIN_VERSION = 1;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_FALSE = 1;
+    private static final byte VALUE_TRUE = 2;
+    private static final byte VALUE_NUMBER = 3;
+    private static final byte VALUE_STRING = 4;
+    private static final byte VALUE_JSON = 5;
+    private static final byte VALUE_INTEGER = 6;
+
+    static ByteBuffer encode(TopologySnapshot snapshot) throws IOException {
+        final Encoder encoder = new Encoder();
+        encoder.writeCount(snapshot.getSites().size());
+        for (Site site : snapshot.getSites()) {
+            encoder.writeString(site.getId());
+            encoder.writeString(site.getLabel());
+        }
+
+        encoder.writeCount(snapshot.getDevicesBySiteId().size());
+        for (Map.Entry<String, List<Device>> entry : snapshot.getDevicesBySiteId().entrySet()) {
+            encoder.writeString(entry.getKey());
+            encoder.writeCount(entry.getValue().size());
+            for (Device device : entry.getValue()) {
+                encoder.writeDevice(device);
+            }
+        }
+        return encoder.toByteBuffer(snapshot.getCreatedAt());
+    }
+
+    static TopologySnapshot decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a topology snapshot");
+            }
+            final int version = buffer.getShort();
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported topology snapshot version " + version);
+            }
+            final Decoder decoder = new Decoder(buffer);
+            final Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+            decoder.readStringTable();
+
+            final int siteCount = decoder.readCount();
+            final List<Site> sites = new ArrayList<>(siteCount);
+            for (int i = 0; i < siteCount; i++) {
+                final Site site = new Site();
+                site.setId(decoder.readString());
+                site.setLabel(decoder.readString());
+                sites.add(site);
+            }
+
+            final int siteDevicesCount = decoder.readCount();
+            final Map<String, List<Device>> devicesBySiteId = new LinkedHashMap<>();
+            for (int i = 0; i < siteDevicesCount; i++) {
+                final String siteId = decoder.readString();
+                final int deviceCount = decoder.readCount();
+                final List<Device> devices = new ArrayList<>(deviceCount);
+                for (int j = 0; j < deviceCount; j++) {
+                    devices.add(decoder.readDevice());
+                }
+                devicesBySiteId.put(siteId, devices);
+            }
+            return new TopologySnapshot(createdAt, sites, devicesBySiteId);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed topology snapshot", e);
+        }
+    }
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> stringTable = new LinkedHashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(body);
+
+        private void writeDevice(Device device) throws IOException {
+            writeString(device.getId());
+            writeString(device.getParentId());
+            writeString(device.getSiteId());
+            writeString(device.getName());
+            writeString(device.getType() != null ? device.getType().getIdentification() : null);
+            out.writeBoolean(device.isAvailable());
+            writeString(device.getVersion());
+            writeStrings(device.getCategories(), Category::getIdentification);
+            writeStrings(device.getCapabilities(), Capability::getIdentification);
+
+            final Collection<State> states = device.getStates() != null ? device.getStates() : List.of();
+            writeCount(states.size());
+            for (State state : states) {
+                writeString(state.getName());
+                writeString(state.getType());
+                writeValue(state.getValue());
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(VALUE_NULL);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(VALUE_INTEGER);
+                writeVarLong(out, ((Number) value).longValue());
+            } else if (value instanceof Number) {
+                out.writeByte(VALUE_NUMBER);
+                out.writeDouble(((Number) value).doubleValue());
+            } else if (value instanceof String) {
+                out.writeByte(VALUE_STRING);
+                writeString((String) value);
+            } else {
+                out.writeByte(VALUE_JSON);
+                writeString(Json.toJson(value));
+            }
+        }
+
+        private <T> void writeStrings(Set<T> values, Function<T, String> identification) throws IOException {
+            if (values == null) {
+                writeCount(0);
+                return;
+            }
+            writeCount(values.size());
+            for (T value : values) {
+                writeString(identification.apply(value));
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            writeCount(value == null ? 0 : stringTable.computeIfAbsent(value, ignored -> stringTable.size() + 1));
+        }
+
+        private void writeCount(int count) throws IOException {
+            writeVarInt(out, count);
+        }
+
+        private ByteBuffer toByteBuffer(Instant createdAt) throws IOException {
+            final ByteArrayOutputStream snapshot = new ByteArrayOutputStream(body.size() + stringTable.size() * 16);
+            final DataOutputStream header = new DataOutputStream(snapshot);
+            header.writeInt(MAGIC);
+            header.writeShort(VERSION);
+            header.writeLong(createdAt.toEpochMilli());
+            writeVarInt(header, stringTable.size());
+            for (String value : stringTable.keySet()) {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(header, bytes.length);
+                header.write(bytes);
+            }
+            body.writeTo(header);
+            header.flush();
+            return ByteBuffer.wrap(snapshot.toByteArray());
+        }
+
+        private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.writeByte((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7fL) != 0) {
+                out.writeByte((int) (zigzag & 0x7f) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.writeByte((int) zigzag);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final ByteBuffer buffer;
+        private final Map<String, Category> categories = new HashMap<>();
+        private final Map<String, Capability> capabilities = new HashMap<>();
+        private String[] stringTable;
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void readStringTable() {
+            stringTable = new String[readCount()];
+            for (int i = 0; i < stringTable.length; i++) {
+                final byte[] bytes = new byte[readCount()];
+                buffer.get(bytes);
+                stringTable[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        private Device readDevice() throws IOException {
+            final Device device = new Device();
+            device.setId(readString());
+            device.setParentId(readString());
+            device.setSiteId(readString());
+            device.setName(readString());
+            final String type = readString();
+            device.setType(type != null ? DeviceType.fromIdentification(type) : null);
+            device.setAvailable(buffer.get() != 0);
+            device.setVersion(readString());
+            device.setCategories(readEnums(categories, Category::fromIdentification));
+            device.setCapabilities(readEnums(capabilities, Capability::fromIdentification));
+
+            final int stateCount = readCount();
+            final DeviceStates.Builder states = DeviceStates.builder();
+            for (int i = 0; i < stateCount; i++) {
+                final String name = readString();
+                final String stateType = readString();
+                final byte tag = buffer.get();
+                if (tag == VALUE_NUMBER) {
+                    states.addNumber(name, stateType, buffer.getDouble());
+                } else if (tag == VALUE_INTEGER) {
+                    states.addInteger(name, stateType, readVarLong());
+                } else {
+                    states.add(name, stateType, readValue(tag));
+                }
+            }
+            device.setDeviceStates(states.build());
+            return device;
+        }
+
+        private Object readValue(byte tag) throws IOException {
+            switch (tag) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_STRING:
+                    return readString();
+                case VALUE_JSON:
+                    return Json.fromJson(readString(), Object.class);
+                default:
+                    throw new IOException("Unknown state value type " + tag);
+            }
+        }
+
+        private <T> Set<T> readEnums(Map<String, T> resolved, Function<String, T> fromIdentification) {
+            final int count = readCount();
+            final Set<T> values = new LinkedHashSet<>();
+            for (int i = 0; i < count; i++) {
+                values.add(resolved.computeIfAbsent(readString(), fromIdentification));
+            }
+            return values;
+        }
+
+        private String readString() {
+            final int reference = readVarInt();
+            if (reference > stringTable.length) {
+                throw new IllegalArgumentException("Invalid string reference " + reference);
+            }
+            return reference == 0 ? null : stringTable[reference - 1];
+        }
+
+        /**
+         * Every element takes at least one byte, so a count exceeding the remaining bytes
+         * can only come from a malformed snapshot and must not be used to allocate anything.
+         */
+        private int readCount() {
+            final int count = readVarInt();
+            if (count > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid count " + count);
+            }
+            return count;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = buffer.get();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Invalid variable-length integer " + value);
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable-length integer");
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = buffer.get();
+                zigzag |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable-length integer");
+        }
+    }
+}
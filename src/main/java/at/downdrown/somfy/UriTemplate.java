@@ -0,0 +1,63 @@
+package at.downdrown.somfy;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A URI with variables in its path, e.g. {@code https://api.somfy.com/api/v1/device/{deviceId}/exec}.
+ * The template is parsed once, expanding it only concatenates the precomputed literals with the
+ * percent-encoded values.
+ *
+ * @author Manfred Huber
+ */
+final class UriTemplate {
+
+    private final String template;
+    private final String[] literals;
+    private final int literalsLength;
+
+    UriTemplate(String template) {
+        final List<String> parsedLiterals = new ArrayList<>();
+        int start = 0;
+        int variableStart;
+        while ((variableStart = template.indexOf('{', start)) >= 0) {
+            final int variableEnd = template.indexOf('}', variableStart);
+            if (variableEnd < 0) {
+                throw new IllegalArgumentException("Unclosed variable in URI template " + template);
+            }
+            parsedLiterals.add(template.substring(start, variableStart));
+            start = variableEnd + 1;
+        }
+        parsedLiterals.add(template.substring(start));
+
+        this.template = template;
+        this.literals = parsedLiterals.toArray(new String[0]);
+        this.literalsLength = parsedLiterals.stream().mapToInt(String::length).sum();
+    }
+
+    /**
+     * Replaces the variables of this template with the given values, in order of their appearance.
+     *
+     * @param values the raw values, they are percent-encoded as path segments.
+     * @return the expanded {@link URI}.
+     */
+    URI expand(String... values) {
+        if (values.length != literals.length - 1) {
+            throw new IllegalArgumentException("URI template " + template + " expects " + (literals.length - 1) + " value(s)");
+        }
+
+        final StringBuilder uri = new StringBuilder(literalsLength + 48);
+        uri.append(literals[0]);
+        for (int i = 0; i < values.length; i++) {
+            uri.append(UriUtils.encodePathSegment(values[i]));
+            uri.append(literals[i + 1]);
+        }
+        return URI.create(uri.toString());
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
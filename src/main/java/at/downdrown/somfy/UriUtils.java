@@ -25,6 +25,8 @@ import static java.util.stream.Collectors.toList;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 final class UriUtils {
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * Extracts the URL parameters from a given {@link URI}.
      *
@@ -44,6 +46,72 @@ final class UriUtils {
                     mapping(Map.Entry::getValue, toList())));
     }
 
+    /**
+     * Percent-encodes a value so that it can be used as a single path segment.
+     * Only unreserved characters are left as they are, so {@code /}, {@code ?} or {@code #} in the value
+     * cannot change the structure of the URI.
+     *
+     * @param value the raw value.
+     * @return the encoded value or the value itself if it does not need to be encoded.
+     */
+    static String encodePathSegment(final String value) {
+        return encode(value, false);
+    }
+
+    /**
+     * Percent-encodes a value so that it can be used as a query parameter value.
+     * In addition to unreserved characters {@code :}, {@code /} and {@code @} are left as they are,
+     * which keeps URLs passed as parameter readable.
+     *
+     * @param value the raw value.
+     * @return the encoded value or the value itself if it does not need to be encoded.
+     */
+    static String encodeQueryParameter(final String value) {
+        return encode(value, true);
+    }
+
+    private static String encode(final String value, final boolean queryParameter) {
+        int firstEncoded = 0;
+        while (firstEncoded < value.length() && isAllowed(value.charAt(firstEncoded), queryParameter)) {
+            firstEncoded++;
+        }
+        if (firstEncoded == value.length()) {
+            return value;
+        }
+
+        final StringBuilder encoded = new StringBuilder(value.length() + 16);
+        encoded.append(value, 0, firstEncoded);
+        for (byte b : value.substring(firstEncoded).getBytes(StandardCharsets.UTF_8)) {
+            if (b >= 0 && isAllowed((char) b, queryParameter)) {
+                encoded.append((char) b);
+            } else {
+                encoded.append('%');
+                encoded.append(HEX_DIGITS[(b >> 4) & 0xF]);
+                encoded.append(HEX_DIGITS[b & 0xF]);
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static boolean isAllowed(final char c, final boolean queryParameter) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+            return true;
+        }
+        switch (c) {
+            case '-':
+            case '.':
+            case '_':
+            case '~':
+                return true;
+            case ':':
+            case '/':
+            case '@':
+                return queryParameter;
+            default:
+                return false;
+        }
+    }
+
     private static AbstractMap.SimpleImmutableEntry<String, String> splitQueryParameter(final String it) {
         final int idx = it.indexOf("=");
         final String key = idx > 0 ? it.substring(0, idx) : it;
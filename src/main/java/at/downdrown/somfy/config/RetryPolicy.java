@@ -0,0 +1,86 @@
+package at.downdrown.somfy.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Defines how requests that failed because of a transient error are retried.
+ * Transient errors are I/O errors and responses with one of the {@link #retryableStatusCodes}.
+ * <p>
+ * Reading requests are idempotent and retried by default, executions of commands are only
+ * retried if {@link #retryExecutions} is enabled since a retried command may be executed twice.
+ *
+ * @author Manfred Huber
+ */
+@Builder
+@RequiredArgsConstructor
+@Getter
+public class RetryPolicy {
+
+    /**
+     * The maximum number of attempts per request, including the first one.
+     */
+    @Builder.Default
+    private final int maxAttempts = 3;
+
+    /**
+     * The delay before the first retry, it doubles with every further retry.
+     */
+    @Builder.Default
+    private final Duration baseDelay = Duration.ofMillis(200);
+
+    /**
+     * The upper bound for the delay between two attempts.
+     */
+    @Builder.Default
+    private final Duration maxDelay = Duration.ofSeconds(10);
+
+    /**
+     * The fraction ({@code 0.0} - {@code 1.0}) by which each delay is randomly shortened,
+     * so that many clients do not retry in lockstep.
+     */
+    @Builder.Default
+    private final double jitter = 0.5;
+
+    /**
+     * The HTTP status codes that indicate a transient error.
+     */
+    @Builder.Default
+    private final Set<Integer> retryableStatusCodes = Set.of(500, 502, 504);
+
+    /**
+     * Whether executions of commands are retried as well.
+     */
+    @Builder.Default
+    private final boolean retryExecutions = false;
+
+    /**
+     * A {@link RetryPolicy} that never retries a request.
+     */
+    public static RetryPolicy none() {
+        return RetryPolicy.builder().maxAttempts(1).build();
+    }
+
+    public boolean isRetryableStatusCode(int statusCode) {
+        return retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Calculates the jittered delay before the given retry.
+     *
+     * @param retry the number of the retry, starting with {@code 1}.
+     * @return the delay before the retry.
+     */
+    public Duration delayBeforeRetry(int retry) {
+        final long exponentialNanos = baseDelay.toNanos() << Math.min(Math.max(retry - 1, 0), 20);
+        final long cappedNanos = Math.min(exponentialNanos < 0 ? Long.MAX_VALUE : exponentialNanos, maxDelay.toNanos());
+        final double jitterFactor = 1 - jitter * ThreadLocalRandom.current().nextDouble();
+        return Duration.ofNanos((long) (cappedNanos * jitterFactor));
+    }
+
+}
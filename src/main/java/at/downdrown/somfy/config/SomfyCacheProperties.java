@@ -0,0 +1,43 @@
+package at.downdrown.somfy.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Properties for the local cache of a {@link at.downdrown.somfy.CachingSomfyClient}.
+ *
+ * @author Manfred Huber
+ */
+@Builder
+@RequiredArgsConstructor
+@Getter
+public class SomfyCacheProperties {
+
+    /**
+     * How long {@link at.downdrown.somfy.domain.Site}s are served from the cache.
+     */
+    @Builder.Default
+    private final Duration siteTtl = Duration.ofMinutes(10);
+
+    /**
+     * How long {@link at.downdrown.somfy.domain.Device}s and device lists are served from the cache.
+     */
+    @Builder.Default
+    private final Duration deviceTtl = Duration.ofSeconds(30);
+
+    /**
+     * The maximum number of cached {@link at.downdrown.somfy.domain.Site}s, the least recently used ones are evicted first.
+     */
+    @Builder.Default
+    private final int maxSites = 64;
+
+    /**
+     * The maximum number of cached {@link at.downdrown.somfy.domain.Device}s, the least recently used ones are evicted first.
+     */
+    @Builder.Default
+    private final int maxDevices = 1024;
+
+}
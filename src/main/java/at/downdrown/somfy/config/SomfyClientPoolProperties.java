@@ -0,0 +1,31 @@
+package at.downdrown.somfy.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Properties for a {@link at.downdrown.somfy.SomfyClientPool}.
+ *
+ * @author Manfred Huber
+ */
+@Builder
+@RequiredArgsConstructor
+@Getter
+public class SomfyClientPoolProperties {
+
+    /**
+     * How long the client of an account is kept after it has been used for the last time.
+     */
+    @Builder.Default
+    private final Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * The maximum number of clients that are kept at once, the least recently used ones are evicted first.
+     */
+    @Builder.Default
+    private final int maxAccounts = 10_000;
+
+}
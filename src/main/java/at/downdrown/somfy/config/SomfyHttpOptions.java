@@ -0,0 +1,65 @@
+package at.downdrown.somfy.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Options for the {@link HttpClient} that is created when none is passed to a client or authenticator.
+ * The request timeout applies to all requests, including requests sent through a passed {@link HttpClient}.
+ *
+ * @author Manfred Huber
+ */
+@Builder
+@RequiredArgsConstructor
+@Getter
+public class SomfyHttpOptions {
+
+    /**
+     * The preferred HTTP version. With HTTP/2 all requests are multiplexed over a single connection,
+     * the client falls back to HTTP/1.1 if the server does not support it.
+     */
+    @Builder.Default
+    private final HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    /**
+     * How long to wait for a connection to be established.
+     */
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long to wait for the response of a single request attempt before it fails with a
+     * {@link java.net.http.HttpTimeoutException}.
+     */
+    @Builder.Default
+    private final Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Whether sites and devices are requested {@code gzip} or {@code deflate} compressed.
+     * Compressed responses are decompressed while they are parsed, which saves most of the transferred bytes
+     * of large device lists.
+     */
+    @Builder.Default
+    private final boolean compression = false;
+
+    /**
+     * Creates a new {@link HttpClient} with these options.
+     *
+     * @param executor the executor of the client or {@code null} to use the default one.
+     */
+    public HttpClient newHttpClient(Executor executor) {
+        final HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+            .version(httpVersion)
+            .connectTimeout(connectTimeout);
+        if (executor != null) {
+            httpClientBuilder.executor(executor);
+        }
+        return httpClientBuilder.build();
+    }
+
+}
@@ -0,0 +1,41 @@
+package at.downdrown.somfy.config;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Properties for a {@link at.downdrown.somfy.DeviceStatePoller}.
+ * <p>
+ * A site is polled every {@link #activeInterval} for {@link #activePeriod} after a command has been
+ * executed or a state change has been observed. Afterwards the interval is doubled with every poll
+ * that brings no change until it reaches {@link #idleInterval}.
+ *
+ * @author Manfred Huber
+ */
+@Builder
+@RequiredArgsConstructor
+@Getter
+public class SomfyPollingProperties {
+
+    /**
+     * The interval in which sites are polled while nothing is happening.
+     */
+    @Builder.Default
+    private final Duration idleInterval = Duration.ofMinutes(1);
+
+    /**
+     * The interval in which a site is polled while its devices are changing.
+     */
+    @Builder.Default
+    private final Duration activeInterval = Duration.ofSeconds(2);
+
+    /**
+     * How long a site is polled in the {@link #activeInterval} after the last execution or observed change.
+     */
+    @Builder.Default
+    private final Duration activePeriod = Duration.ofSeconds(30);
+
+}
@@ -4,6 +4,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Duration;
+
 /**
  * Required properties to interact with Somfy's Open API.
  *
@@ -41,4 +43,74 @@ public class SomfyProperties {
      */
     private final String consumerSecret;
 
+    /**
+     * Options for the HTTP connection to Somfy's Open API.
+     */
+    @Builder.Default
+    private final SomfyHttpOptions httpOptions = SomfyHttpOptions.builder().build();
+
+    /**
+     * How long before the {@code access_token} expires it will already be refreshed in the background.
+     */
+    @Builder.Default
+    private final Duration tokenRefreshLeeway = Duration.ofMinutes(1);
+
+    /**
+     * The maximum number of commands that are sent concurrently when executing a command for many devices.
+     */
+    @Builder.Default
+    private final int executionParallelism = 8;
+
+    /**
+     * The sustained number of requests per second that are sent to Somfy's Open API.
+     * Requests above this rate are queued, {@code 0} disables the rate limit.
+     */
+    @Builder.Default
+    private final double requestsPerSecond = 10;
+
+    /**
+     * The number of requests that may be sent at once before the {@link #requestsPerSecond} limit kicks in.
+     */
+    @Builder.Default
+    private final int requestBurst = 20;
+
+    /**
+     * How often a request that was throttled by Somfy (HTTP 429, or HTTP 503 for requests that may be retried) is sent again before it fails.
+     */
+    @Builder.Default
+    private final int maxThrottledRetries = 5;
+
+    /**
+     * How requests that failed because of a transient error are retried.
+     */
+    @Builder.Default
+    private final RetryPolicy retryPolicy = RetryPolicy.builder().build();
+
+    /**
+     * Whether identical reading requests that are in flight at the same time are sent only once.
+     * All callers then receive the same result instances.
+     */
+    @Builder.Default
+    private final boolean coalesceRequests = true;
+
+    /**
+     * For how many sites, site lists, device lists and devices the {@code ETag} and {@code Last-Modified} of the last
+     * response are kept. Reading them again sends a conditional request and if nothing has changed,
+     * the previously returned instances are returned again. {@code 0} disables conditional requests.
+     */
+    @Builder.Default
+    private final int conditionalRequestCacheSize = 1_000;
+
+    /**
+     * The interval in which the status of outstanding jobs is polled when waiting for their completion.
+     */
+    @Builder.Default
+    private final Duration jobPollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long to wait for a job to complete before giving up.
+     */
+    @Builder.Default
+    private final Duration jobTimeout = Duration.ofMinutes(2);
+
 }
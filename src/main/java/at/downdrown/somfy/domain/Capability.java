@@ -3,6 +3,8 @@ package at.downdrown.somfy.domain;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -19,7 +21,20 @@ public enum Capability {
     POSITION("position", Parameter.POSITION),
     POSITION_LOW_SPEED("position_low_speed", Parameter.POSITION),
     STOP("stop"),
-    IDENTIFY("identify");
+    IDENTIFY("identify"),
+
+    /**
+     * Any capability that is not (yet) known to this library.
+     */
+    UNKNOWN("unknown");
+
+    private static final Map<String, Capability> BY_IDENTIFICATION = new HashMap<>();
+
+    static {
+        for (Capability capability : values()) {
+            BY_IDENTIFICATION.put(capability.identification, capability);
+        }
+    }
 
     private final String identification;
     private final Set<Parameter> parameters;
@@ -28,6 +43,16 @@ public enum Capability {
         this.parameters = Set.of(parameters);
     }
 
+    /**
+     * Looks up the {@link Capability} with the given {@code identification}.
+     *
+     * @param identification the identification used by Somfy's Open API.
+     * @return the matching {@link Capability} or {@link #UNKNOWN}.
+     */
+    public static Capability fromIdentification(String identification) {
+        return BY_IDENTIFICATION.getOrDefault(identification, UNKNOWN);
+    }
+
     @AllArgsConstructor
     @Getter
     public enum Parameter {
@@ -3,6 +3,9 @@ package at.downdrown.somfy.domain;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * A list of device categories.
  * This list may be incomplete, please submit an issue if you find missing categories.
@@ -15,8 +18,31 @@ public enum Category {
 
     ACTUATOR("actuator"),
     ROLLER_SHUTTER("roller_shutter"),
-    HUB("hub");
+    HUB("hub"),
+
+    /**
+     * Any category that is not (yet) known to this library.
+     */
+    UNKNOWN("unknown");
+
+    private static final Map<String, Category> BY_IDENTIFICATION = new HashMap<>();
+
+    static {
+        for (Category category : values()) {
+            BY_IDENTIFICATION.put(category.identification, category);
+        }
+    }
 
     private final String identification;
 
+    /**
+     * Looks up the {@link Category} with the given {@code identification}.
+     *
+     * @param identification the identification used by Somfy's Open API.
+     * @return the matching {@link Category} or {@link #UNKNOWN}.
+     */
+    public static Category fromIdentification(String identification) {
+        return BY_IDENTIFICATION.getOrDefault(identification, UNKNOWN);
+    }
+
 }
@@ -29,7 +29,7 @@ public final class Device {
     private Set<Category> categories;
 
     @SerializedName("states")
-    private Set<State> states;
+    private DeviceStates states;
 
     @SerializedName("capabilities")
     private Set<Capability> capabilities;
@@ -40,4 +40,27 @@ public final class Device {
     @SerializedName("version")
     private String version;
 
+    /**
+     * @return the states of this device, read them with the typed accessors of {@link DeviceStates}.
+     */
+    public DeviceStates getDeviceStates() {
+        return states != null ? states : DeviceStates.empty();
+    }
+
+    public void setDeviceStates(DeviceStates states) {
+        this.states = states;
+    }
+
+    /**
+     * @return the states of this device as {@link State}s, boxing every value.
+     * @see #getDeviceStates()
+     */
+    public Set<State> getStates() {
+        return states != null ? states.toStates() : null;
+    }
+
+    public void setStates(Set<State> states) {
+        this.states = states != null ? DeviceStates.of(states) : null;
+    }
+
 }
@@ -0,0 +1,409 @@
+package at.downdrown.somfy.domain;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The {@link State}s of a {@link Device}, stored by their {@link StateType}.
+ * <p>
+ * Integer, float and boolean values are kept as primitives in a single array per device, so reading them with
+ * {@link #getInt(String)}, {@link #getLong(String)}, {@link #getDouble(String)} or {@link #getBoolean(String)}
+ * neither boxes nor casts. Integers that do not fit into an {@code int} are kept as {@code long}.
+ * Instances are immutable.
+ *
+ * @author Manfred Huber
+ */
+public final class DeviceStates {
+
+    private static final DeviceStates EMPTY = new Builder().build();
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte STRING = 4;
+    private static final byte OBJECT = 5;
+    private static final byte LONG = 6;
+
+    private final String[] names;
+    private final String[] types;
+    private final byte[] kinds;
+    private final long[] values;
+    private final Object[] objects;
+
+    private DeviceStates(Builder builder) {
+        this.names = Arrays.copyOf(builder.names, builder.size);
+        this.types = Arrays.copyOf(builder.types, builder.size);
+        this.kinds = Arrays.copyOf(builder.kinds, builder.size);
+        this.values = Arrays.copyOf(builder.values, builder.size);
+        this.objects = builder.objects != null ? Arrays.copyOf(builder.objects, builder.size) : null;
+    }
+
+    public static DeviceStates empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Converts the given {@link State}s, numeric values are stored as {@code int} if their type is {@link StateType#INTEGER}.
+     */
+    public static DeviceStates of(Set<State> states) {
+        final Builder builder = new Builder();
+        states.forEach(state -> builder.add(state.getName(), state.getType(), state.getValue()));
+        return builder.build();
+    }
+
+    /**
+     * @return the number of states.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return the name of the state at the given {@code index}, in the order Somfy has listed them.
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * @return the {@link StateType} of the state with the given {@code name}.
+     * @throws IllegalArgumentException if there is no such state.
+     */
+    public StateType getType(String name) {
+        return StateType.fromIdentification(types[requireIndex(name)]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such state.
+     * @throws IllegalStateException    if the state is no {@link StateType#INTEGER} or does not fit into an {@code int},
+     *                                  use {@link #getLong(String)} for those.
+     */
+    public int getInt(String name) {
+        final int index = requireIndex(name);
+        if (kinds[index] == LONG) {
+            throw new IllegalStateException("State " + name + " does not fit into an int");
+        }
+        return (int) values[requireKind(index, INT)];
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such state.
+     * @throws IllegalStateException    if the state is no {@link StateType#INTEGER}.
+     */
+    public long getLong(String name) {
+        final int index = requireIndex(name);
+        if (kinds[index] == INT) {
+            return values[index];
+        }
+        return values[requireKind(index, LONG)];
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such state.
+     * @throws IllegalStateException    if the state is no {@link StateType#INTEGER} or {@link StateType#FLOAT}.
+     */
+    public double getDouble(String name) {
+        final int index = requireIndex(name);
+        if (kinds[index] == INT || kinds[index] == LONG) {
+            return values[index];
+        }
+        return Double.longBitsToDouble(values[requireKind(index, DOUBLE)]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such state.
+     * @throws IllegalStateException    if the state is no {@link StateType#BOOLEAN}.
+     */
+    public boolean getBoolean(String name) {
+        return values[requireIndex(name, BOOLEAN)] != 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no such state.
+     * @throws IllegalStateException    if the state is no {@link StateType#STRING}.
+     */
+    public String getString(String name) {
+        final int index = requireIndex(name);
+        if (kinds[index] == NULL) {
+            return null;
+        }
+        return (String) objects[requireKind(index, STRING)];
+    }
+
+    /**
+     * Returns the value of the state with the given {@code name} boxed into its wrapper type.
+     * Prefer the typed accessors for frequently read states.
+     *
+     * @return the value or {@code null} if there is no such state.
+     */
+    public Object getValue(String name) {
+        final int index = indexOf(name);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    /**
+     * @return the state with the given {@code name} as {@link State} or {@code null} if there is no such state.
+     */
+    public State getState(String name) {
+        final int index = indexOf(name);
+        if (index < 0) {
+            return null;
+        }
+        final State state = new State();
+        state.setName(names[index]);
+        state.setType(types[index]);
+        state.setValue(valueAt(index));
+        return state;
+    }
+
+    /**
+     * @return all states as {@link State}s.
+     */
+    public Set<State> toStates() {
+        final Set<State> states = new LinkedHashSet<>();
+        for (String name : names) {
+            states.add(getState(name));
+        }
+        return states;
+    }
+
+    /**
+     * Compares a single state without boxing its value.
+     *
+     * @return whether both have a state with the given {@code name} with the same type and value.
+     */
+    public boolean hasSameValue(String name, DeviceStates other) {
+        final int index = indexOf(name);
+        final int otherIndex = other.indexOf(name);
+        if (index < 0 || otherIndex < 0) {
+            return index == otherIndex;
+        }
+        return kinds[index] == other.kinds[otherIndex]
+            && values[index] == other.values[otherIndex]
+            && Objects.equals(types[index], other.types[otherIndex])
+            && Objects.equals(objectAt(index), other.objectAt(otherIndex));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeviceStates)) {
+            return false;
+        }
+        final DeviceStates that = (DeviceStates) o;
+        if (!Arrays.equals(names, that.names)
+            || !Arrays.equals(types, that.types)
+            || !Arrays.equals(kinds, that.kinds)
+            || !Arrays.equals(values, that.values)) {
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (!Objects.equals(objectAt(i), that.objectAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(names) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(names[i]).append('=').append(valueAt(i)).append(" (").append(types[i]).append(')');
+        }
+        return builder.append('}').toString();
+    }
+
+    private int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int requireIndex(String name) {
+        final int index = indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException("No state " + name);
+        }
+        return index;
+    }
+
+    private int requireIndex(String name, byte kind) {
+        return requireKind(requireIndex(name), kind);
+    }
+
+    private int requireKind(int index, byte kind) {
+        if (kinds[index] != kind) {
+            throw new IllegalStateException("State " + names[index] + " is of type " + types[index]);
+        }
+        return index;
+    }
+
+    private Object objectAt(int index) {
+        return objects != null ? objects[index] : null;
+    }
+
+    private Object valueAt(int index) {
+        switch (kinds[index]) {
+            case INT:
+                return (int) values[index];
+            case LONG:
+                return values[index];
+            case DOUBLE:
+                return Double.longBitsToDouble(values[index]);
+            case BOOLEAN:
+                return values[index] != 0;
+            case NULL:
+                return null;
+            default:
+                return objects[index];
+        }
+    }
+
+    /**
+     * Collects states in the order they are added. Adding a state with a name that has already been added replaces it.
+     */
+    public static final class Builder {
+
+        private String[] names = new String[4];
+        private String[] types = new String[4];
+        private byte[] kinds = new byte[4];
+        private long[] values = new long[4];
+        private Object[] objects;
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder addInt(String name, int value) {
+            return add(name, StateType.INTEGER.getIdentification(), INT, value, null);
+        }
+
+        public Builder addFloat(String name, double value) {
+            return add(name, StateType.FLOAT.getIdentification(), DOUBLE, Double.doubleToLongBits(value), null);
+        }
+
+        public Builder addBoolean(String name, boolean value) {
+            return add(name, StateType.BOOLEAN.getIdentification(), BOOLEAN, value ? 1 : 0, null);
+        }
+
+        public Builder addString(String name, String value) {
+            return add(name, StateType.STRING.getIdentification(), value != null ? STRING : NULL, 0, value);
+        }
+
+        /**
+         * Adds a numeric value as declared by its {@code type}, integers are stored as {@code int} or,
+         * if they do not fit, as {@code long}.
+         */
+        public Builder addNumber(String name, String type, double value) {
+            if (StateType.INTEGER.getIdentification().equals(type) && value == (int) value) {
+                return add(name, type, INT, (int) value, null);
+            }
+            if (StateType.INTEGER.getIdentification().equals(type) && value == (long) value) {
+                return add(name, type, LONG, (long) value, null);
+            }
+            return add(name, type, DOUBLE, Double.doubleToLongBits(value), null);
+        }
+
+        /**
+         * Adds an integral value without converting it to {@code double}, so integers beyond 2<sup>53</sup>
+         * keep their precision. Values of other types than {@link StateType#INTEGER} are stored as {@code double}.
+         */
+        public Builder addInteger(String name, String type, long value) {
+            if (!StateType.INTEGER.getIdentification().equals(type)) {
+                return add(name, type, DOUBLE, Double.doubleToLongBits(value), null);
+            }
+            return value == (int) value
+                ? add(name, type, INT, value, null)
+                : add(name, type, LONG, value, null);
+        }
+
+        public Builder addBoolean(String name, String type, boolean value) {
+            return add(name, type, BOOLEAN, value ? 1 : 0, null);
+        }
+
+        /**
+         * Adds a value of any type, numbers and booleans are unboxed.
+         */
+        public Builder add(String name, String type, Object value) {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return addInteger(name, type, ((Number) value).longValue());
+            }
+            if (value instanceof Number) {
+                return addNumber(name, type, ((Number) value).doubleValue());
+            }
+            if (value instanceof Boolean) {
+                return addBoolean(name, type, (Boolean) value);
+            }
+            if (value == null) {
+                return add(name, type, NULL, 0, null);
+            }
+            return add(name, type, value instanceof String ? STRING : OBJECT, 0, value);
+        }
+
+        public DeviceStates build() {
+            return new DeviceStates(this);
+        }
+
+        private Builder add(String name, String type, byte kind, long value, Object object) {
+            Objects.requireNonNull(name, "No name present.");
+            int index = 0;
+            while (index < size && !names[index].equals(name)) {
+                index++;
+            }
+            if (index == size) {
+                ensureCapacity(size + 1);
+                size++;
+            }
+
+            names[index] = name;
+            types[index] = type;
+            kinds[index] = kind;
+            values[index] = value;
+            if (object != null || objects != null) {
+                if (objects == null) {
+                    objects = new Object[names.length];
+                }
+                objects[index] = object;
+            }
+            return this;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > names.length) {
+                final int newLength = Math.max(capacity, names.length * 2);
+                names = Arrays.copyOf(names, newLength);
+                types = Arrays.copyOf(types, newLength);
+                kinds = Arrays.copyOf(kinds, newLength);
+                values = Arrays.copyOf(values, newLength);
+                if (objects != null) {
+                    objects = Arrays.copyOf(objects, newLength);
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,8 @@ package at.downdrown.somfy.domain;
 
 import lombok.Getter;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 import static at.downdrown.somfy.domain.Capability.CLOSE;
@@ -33,7 +35,20 @@ public enum DeviceType {
     POSITIONABLE_STATEFUL_PROJECTION("roller_shutter_positionable_stateful_projection", CLOSE, OPEN, POSITION, STOP, IDENTIFY),
     POSITIONABLE_STATEFUL_ROOF("roller_shutter_positionable_stateful_roof", CLOSE, OPEN, POSITION, STOP, IDENTIFY),
     POSITIONABLE_STATEFUL_RS100("roller_shutter_positionable_stateful_rs100", CLOSE, OPEN, POSITION, POSITION_LOW_SPEED, STOP, IDENTIFY),
-    POSITIONABLE_STATELESS_UNO("roller_shutter_positionable_stateless_uno", CLOSE, OPEN, POSITION, STOP, IDENTIFY);
+    POSITIONABLE_STATELESS_UNO("roller_shutter_positionable_stateless_uno", CLOSE, OPEN, POSITION, STOP, IDENTIFY),
+
+    /**
+     * Any device type that is not (yet) known to this library.
+     */
+    UNKNOWN("unknown");
+
+    private static final Map<String, DeviceType> BY_IDENTIFICATION = new HashMap<>();
+
+    static {
+        for (DeviceType deviceType : values()) {
+            BY_IDENTIFICATION.put(deviceType.identification, deviceType);
+        }
+    }
 
     private final String identification;
     private final Set<Capability> capabilities;
@@ -43,4 +58,14 @@ public enum DeviceType {
         this.capabilities = Set.of(capabilities);
     }
 
+    /**
+     * Looks up the {@link DeviceType} with the given {@code identification}.
+     *
+     * @param identification the identification used by Somfy's Open API.
+     * @return the matching {@link DeviceType} or {@link #UNKNOWN}.
+     */
+    public static DeviceType fromIdentification(String identification) {
+        return BY_IDENTIFICATION.getOrDefault(identification, UNKNOWN);
+    }
+
 }
@@ -0,0 +1,17 @@
+package at.downdrown.somfy.domain;
+
+import com.google.gson.annotations.SerializedName;
+import lombok.Data;
+import lombok.ToString;
+
+@Data
+@ToString
+public final class Job {
+
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("status")
+    private JobStatus status;
+
+}
@@ -0,0 +1,55 @@
+package at.downdrown.somfy.domain;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The status of a job that has been created by executing a {@link Command}.
+ * <p>
+ * Somfy's Open API does not document the job status values, the identifications below are assumed.
+ * Any other value is read as {@link #UNKNOWN} and logged as warning.
+ *
+ * @author Manfred Huber
+ */
+@Getter
+public enum JobStatus {
+
+    PENDING("pending", false),
+    IN_PROGRESS("in_progress", false),
+    COMPLETED("completed", true),
+    FAILED("failed", true),
+    CANCELLED("cancelled", true),
+
+    /**
+     * Any job status that is not (yet) known to this library.
+     * Waiting for a job fails as soon as it has an unknown status, as it is unclear whether it will ever finish.
+     */
+    UNKNOWN("unknown", false);
+
+    private static final Map<String, JobStatus> BY_IDENTIFICATION = new HashMap<>();
+
+    static {
+        for (JobStatus jobStatus : values()) {
+            BY_IDENTIFICATION.put(jobStatus.identification, jobStatus);
+        }
+    }
+
+    private final String identification;
+
+    /**
+     * Whether the job has finished and its status will not change anymore.
+     */
+    private final boolean terminal;
+
+    JobStatus(String identification, boolean terminal) {
+        this.identification = identification;
+        this.terminal = terminal;
+    }
+
+    public static JobStatus fromIdentification(String identification) {
+        return BY_IDENTIFICATION.getOrDefault(identification, UNKNOWN);
+    }
+
+}
@@ -0,0 +1,49 @@
+package at.downdrown.somfy.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The types of device states.
+ * This list may be incomplete, please submit an issue if you find missing state types.
+ *
+ * @author Manfred Huber
+ */
+@AllArgsConstructor
+@Getter
+public enum StateType {
+
+    INTEGER("integer"),
+    FLOAT("float"),
+    BOOLEAN("boolean"),
+    STRING("string"),
+
+    /**
+     * Any state type that is not (yet) known to this library.
+     */
+    UNKNOWN("unknown");
+
+    private static final Map<String, StateType> BY_IDENTIFICATION = new HashMap<>();
+
+    static {
+        for (StateType stateType : values()) {
+            BY_IDENTIFICATION.put(stateType.identification, stateType);
+        }
+    }
+
+    private final String identification;
+
+    /**
+     * Looks up the {@link StateType} with the given {@code identification}.
+     *
+     * @param identification the identification used by Somfy's Open API.
+     * @return the matching {@link StateType} or {@link #UNKNOWN}.
+     */
+    public static StateType fromIdentification(String identification) {
+        return BY_IDENTIFICATION.getOrDefault(identification, UNKNOWN);
+    }
+
+}
@@ -15,6 +15,9 @@ import java.net.URI;
 public class SomfyApiRequestException extends RuntimeException{
 
     private final URI requestedUri;
+    /**
+     * The HTTP status of the response or {@code 0} if no response has been received.
+     */
     private final int httpStatus;
 
     public SomfyApiRequestException(String message, URI requestedUri, int httpStatus) {
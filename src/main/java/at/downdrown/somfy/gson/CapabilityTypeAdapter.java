@@ -0,0 +1,51 @@
+package at.downdrown.somfy.gson;
+
+import at.downdrown.somfy.domain.Capability;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads a {@link Capability} from a capability object of Somfy's Open API.
+ * Only the {@code name} of the capability is evaluated, its parameter declarations are skipped.
+ */
+public class CapabilityTypeAdapter extends TypeAdapter<Capability> {
+
+    @Override
+    public void write(JsonWriter out, Capability value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("name").value(value.getIdentification());
+        out.endObject();
+    }
+
+    @Override
+    public Capability read(JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Capability.fromIdentification(in.nextString());
+        }
+
+        String name = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("name".equals(in.nextName())) {
+                name = in.nextString();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return Capability.fromIdentification(name);
+    }
+}
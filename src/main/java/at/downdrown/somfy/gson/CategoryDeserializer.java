@@ -1,20 +0,0 @@
-package at.downdrown.somfy.gson;
-
-import at.downdrown.somfy.domain.Category;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-
-import java.lang.reflect.Type;
-import java.util.Arrays;
-
-public class CategoryDeserializer implements JsonDeserializer<Category> {
-    @Override
-    public Category deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        return Arrays.stream(Category.values())
-            .filter(capability -> json.getAsString().equals(capability.getIdentification()))
-            .findFirst()
-            .orElseThrow();
-    }
-}
@@ -0,0 +1,33 @@
+package at.downdrown.somfy.gson;
+
+import at.downdrown.somfy.domain.Category;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link Category} as the category identification used by Somfy's Open API.
+ */
+public class CategoryTypeAdapter extends TypeAdapter<Category> {
+
+    @Override
+    public void write(JsonWriter out, Category value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(value.getIdentification());
+    }
+
+    @Override
+    public Category read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return Category.fromIdentification(in.nextString());
+    }
+}
@@ -0,0 +1,142 @@
+package at.downdrown.somfy.gson;
+
+import at.downdrown.somfy.domain.DeviceStates;
+import at.downdrown.somfy.domain.State;
+import at.downdrown.somfy.domain.StateType;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link DeviceStates} as the array of state objects used by Somfy's Open API.
+ * Numbers and booleans are read as primitives, so they are never boxed. As the {@code type} of a state
+ * may follow its {@code value}, the value is only converted once the whole state object has been read.
+ * Values of integer states are read as {@code long}, so integers beyond 2<sup>53</sup> keep their precision.
+ * If the type is only known after the value, the number is kept as literal until then.
+ */
+public class DeviceStatesTypeAdapter extends TypeAdapter<DeviceStates> {
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public void write(JsonWriter out, DeviceStates value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < value.size(); i++) {
+            final State state = value.getState(value.getName(i));
+            final Object stateValue = state.getValue();
+            out.beginObject();
+            out.name("name").value(state.getName());
+            out.name("value");
+            if (stateValue == null) {
+                out.nullValue();
+            } else {
+                GSON.toJson(stateValue, stateValue.getClass(), out);
+            }
+            out.name("type").value(state.getType());
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    @Override
+    public DeviceStates read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final DeviceStates.Builder builder = DeviceStates.builder();
+        in.beginArray();
+        while (in.hasNext()) {
+            String name = null;
+            String type = null;
+            JsonToken valueToken = JsonToken.NULL;
+            String numberLiteral = null;
+            boolean integral = false;
+            long integer = 0;
+            double number = 0;
+            boolean bool = false;
+            Object object = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name":
+                        name = nextStringOrNull(in);
+                        break;
+                    case "type":
+                        type = nextStringOrNull(in);
+                        break;
+                    case "value":
+                        valueToken = in.peek();
+                        if (valueToken == JsonToken.NUMBER && type == null) {
+                            numberLiteral = in.nextString();
+                        } else if (valueToken == JsonToken.NUMBER && isInteger(type)) {
+                            try {
+                                integer = in.nextLong();
+                                integral = true;
+                            } catch (NumberFormatException e) {
+                                number = in.nextDouble();
+                            }
+                        } else if (valueToken == JsonToken.NUMBER) {
+                            number = in.nextDouble();
+                        } else if (valueToken == JsonToken.BOOLEAN) {
+                            bool = in.nextBoolean();
+                        } else {
+                            object = GSON.fromJson(in, Object.class);
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (name == null) {
+                continue;
+            }
+            if (numberLiteral != null && isInteger(type)) {
+                try {
+                    integer = Long.parseLong(numberLiteral);
+                    integral = true;
+                } catch (NumberFormatException e) {
+                    number = Double.parseDouble(numberLiteral);
+                }
+            } else if (numberLiteral != null) {
+                number = Double.parseDouble(numberLiteral);
+            }
+
+            if (valueToken == JsonToken.NUMBER && integral) {
+                builder.addInteger(name, type, integer);
+            } else if (valueToken == JsonToken.NUMBER) {
+                builder.addNumber(name, type, number);
+            } else if (valueToken == JsonToken.BOOLEAN) {
+                builder.addBoolean(name, type, bool);
+            } else {
+                builder.add(name, type, object);
+            }
+        }
+        in.endArray();
+        return builder.build();
+    }
+
+    private static boolean isInteger(String type) {
+        return StateType.INTEGER.getIdentification().equals(type);
+    }
+
+    private static String nextStringOrNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -0,0 +1,33 @@
+package at.downdrown.somfy.gson;
+
+import at.downdrown.somfy.domain.DeviceType;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link DeviceType} as the device type identification used by Somfy's Open API.
+ */
+public class DeviceTypeTypeAdapter extends TypeAdapter<DeviceType> {
+
+    @Override
+    public void write(JsonWriter out, DeviceType value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(value.getIdentification());
+    }
+
+    @Override
+    public DeviceType read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return DeviceType.fromIdentification(in.nextString());
+    }
+}
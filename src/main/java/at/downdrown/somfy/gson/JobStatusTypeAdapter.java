@@ -0,0 +1,40 @@
+package at.downdrown.somfy.gson;
+
+import at.downdrown.somfy.domain.JobStatus;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link JobStatus} as the job status identification used by Somfy's Open API.
+ */
+@Slf4j(topic = "somfyclient")
+public class JobStatusTypeAdapter extends TypeAdapter<JobStatus> {
+
+    @Override
+    public void write(JsonWriter out, JobStatus value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(value.getIdentification());
+    }
+
+    @Override
+    public JobStatus read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final String identification = in.nextString();
+        final JobStatus jobStatus = JobStatus.fromIdentification(identification);
+        if (jobStatus == JobStatus.UNKNOWN) {
+            log.warn("Unknown job status '{}'", identification);
+        }
+        return jobStatus;
+    }
+}
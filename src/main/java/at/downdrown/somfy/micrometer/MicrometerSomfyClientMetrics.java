@@ -0,0 +1,121 @@
+package at.downdrown.somfy.micrometer;
+
+import at.downdrown.somfy.SomfyClientMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SomfyClientMetrics} that records to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * The following meters are registered:
+ * <ul>
+ *     <li>{@code somfy.client.requests} - timer per {@code endpoint}, {@code status} and {@code outcome}, publishing a percentile histogram</li>
+ *     <li>{@code somfy.client.retries} - counter per {@code endpoint} and {@code status}</li>
+ *     <li>{@code somfy.client.response.bytes} - distribution summary of the response body sizes per {@code endpoint}</li>
+ *     <li>{@code somfy.client.deserialization} - timer per {@code endpoint}</li>
+ *     <li>{@code somfy.client.token.refresh} - timer per {@code outcome}</li>
+ * </ul>
+ * Meters are registered once per combination of tags and reused afterwards.
+ * Micrometer is an optional dependency of this library and has to be added to the classpath to use this class.
+ *
+ * @author Manfred Huber
+ */
+public final class MicrometerSomfyClientMetrics implements SomfyClientMetrics {
+
+    private static final String OUTCOME_SUCCESS = "SUCCESS";
+    private static final String OUTCOME_ERROR = "ERROR";
+    private static final String STATUS_NONE = "NONE";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final Map<List<String>, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Map<List<String>, Counter> retryCounters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> responseSizeSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> deserializationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> tokenRefreshTimers = new ConcurrentHashMap<>();
+
+    public MicrometerSomfyClientMetrics(MeterRegistry registry) {
+        this(registry, Tags.empty());
+    }
+
+    /**
+     * @param registry the registry the meters are registered in.
+     * @param tags     additional tags that are added to all meters, e.g. to tell multiple clients apart.
+     */
+    public MicrometerSomfyClientMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        this.registry = registry;
+        this.tags = Tags.of(tags);
+    }
+
+    @Override
+    public void onRequestCompleted(String endpoint, int statusCode, int attempts, Duration latency, Throwable failure) {
+        requestTimers.computeIfAbsent(List.of(endpoint, status(statusCode), outcome(failure)), key -> Timer.builder("somfy.client.requests")
+                .description("Requests sent to Somfy's Open API, including retries")
+                .tags(tags)
+                .tag("endpoint", key.get(0))
+                .tag("status", key.get(1))
+                .tag("outcome", key.get(2))
+                .publishPercentileHistogram()
+                .register(registry))
+            .record(latency);
+    }
+
+    @Override
+    public void onRetry(String endpoint, int statusCode, Duration delay) {
+        retryCounters.computeIfAbsent(List.of(endpoint, status(statusCode)), key -> Counter.builder("somfy.client.retries")
+                .description("Retried requests to Somfy's Open API")
+                .tags(tags)
+                .tag("endpoint", key.get(0))
+                .tag("status", key.get(1))
+                .register(registry))
+            .increment();
+    }
+
+    @Override
+    public void onResponseBodyReceived(String endpoint, long bytes) {
+        responseSizeSummaries.computeIfAbsent(endpoint, key -> DistributionSummary.builder("somfy.client.response.bytes")
+                .description("Size of the response bodies received from Somfy's Open API")
+                .baseUnit("bytes")
+                .tags(tags)
+                .tag("endpoint", key)
+                .register(registry))
+            .record(bytes);
+    }
+
+    @Override
+    public void onDeserialized(String endpoint, Duration duration) {
+        deserializationTimers.computeIfAbsent(endpoint, key -> Timer.builder("somfy.client.deserialization")
+                .description("Time spent deserializing response bodies")
+                .tags(tags)
+                .tag("endpoint", key)
+                .register(registry))
+            .record(duration);
+    }
+
+    @Override
+    public void onTokenRefreshed(Duration latency, Throwable failure) {
+        tokenRefreshTimers.computeIfAbsent(outcome(failure), key -> Timer.builder("somfy.client.token.refresh")
+                .description("Refreshes of the access token")
+                .tags(tags)
+                .tag("outcome", key)
+                .register(registry))
+            .record(latency);
+    }
+
+    private static String status(int statusCode) {
+        return statusCode == 0 ? STATUS_NONE : String.valueOf(statusCode);
+    }
+
+    private static String outcome(Throwable failure) {
+        return failure == null ? OUTCOME_SUCCESS : OUTCOME_ERROR;
+    }
+}
@@ -0,0 +1,32 @@
+package at.downdrown.somfy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Factory for {@link ExecutorService}s that can be passed to {@link SomfyClientBuilder#executor(java.util.concurrent.Executor)}.
+ * <p>
+ * This is the Java 21 version of this class, {@link #newThreadPerTaskExecutor()} creates virtual threads.
+ *
+ * @author Manfred Huber
+ */
+public final class SomfyExecutors {
+
+    private SomfyExecutors() {
+    }
+
+    /**
+     * Whether {@link #newThreadPerTaskExecutor()} creates virtual threads on the running JVM.
+     */
+    public static boolean isVirtualThreadPerTask() {
+        return true;
+    }
+
+    /**
+     * Creates an {@link ExecutorService} that runs every task on its own virtual thread.
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("somfy-client-", 1).factory());
+    }
+
+}
@@ -0,0 +1,124 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyCacheProperties;
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingSomfyClientImplTest {
+
+    private final SomfyCacheProperties cacheProperties = SomfyCacheProperties.builder()
+        .deviceTtl(Duration.ofSeconds(30))
+        .maxDevices(2)
+        .build();
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    private SomfyClient delegate;
+    private CachingSomfyClient client;
+
+    private static Device device(String deviceId, String siteId) {
+        Device device = new Device();
+        device.setId(deviceId);
+        device.setSiteId(siteId);
+        return device;
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        delegate = mock(SomfyClient.class);
+        client = new CachingSomfyClientImpl(delegate, cacheProperties, nanoClock::get);
+    }
+
+    @Test
+    public void getDeviceById_shouldServeFromCache() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        when(delegate.getDeviceById("1")).thenReturn(device("1", "site"));
+
+        assertThat(client.getDeviceById("1")).isSameAs(client.getDeviceById("1"));
+        verify(delegate, times(1)).getDeviceById("1");
+    }
+
+    @Test
+    public void getDeviceById_shouldReloadExpiredEntries() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        when(delegate.getDeviceById("1")).thenReturn(device("1", "site"));
+
+        client.getDeviceById("1");
+        nanoClock.addAndGet(Duration.ofSeconds(31).toNanos());
+        client.getDeviceById("1");
+
+        verify(delegate, times(2)).getDeviceById("1");
+    }
+
+    @Test
+    public void getDeviceById_shouldEvictLeastRecentlyUsedEntries() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        when(delegate.getDeviceById("1")).thenReturn(device("1", "site"));
+        when(delegate.getDeviceById("2")).thenReturn(device("2", "site"));
+        when(delegate.getDeviceById("3")).thenReturn(device("3", "site"));
+
+        client.getDeviceById("1");
+        client.getDeviceById("2");
+        client.getDeviceById("1");
+        client.getDeviceById("3");
+        client.getDeviceById("1");
+        client.getDeviceById("2");
+
+        verify(delegate, times(1)).getDeviceById("1");
+        verify(delegate, times(2)).getDeviceById("2");
+    }
+
+    @Test
+    public void listDevices_shouldPopulateDeviceEntries() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        when(delegate.listDevices("site")).thenReturn(List.of(device("1", "site"), device("2", "site")));
+
+        client.listDevices("site");
+        client.listDevices("site");
+        client.getDeviceById("2");
+
+        verify(delegate, times(1)).listDevices("site");
+        verify(delegate, never()).getDeviceById("2");
+    }
+
+    @Test
+    public void execute_shouldInvalidateDevice() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        Command command = Command.ofCapability(Capability.OPEN);
+        when(delegate.listDevices("site")).thenReturn(List.of(device("1", "site")));
+        when(delegate.getDeviceById("1")).thenReturn(device("1", "site"));
+        when(delegate.execute(command, "1")).thenReturn("a-job-id");
+
+        client.listDevices("site");
+        assertThat(client.execute(command, "1")).isEqualTo("a-job-id");
+        client.getDeviceById("1");
+        client.listDevices("site");
+
+        verify(delegate, times(1)).getDeviceById("1");
+        verify(delegate, times(2)).listDevices("site");
+    }
+
+    @Test
+    public void close_shouldCloseDelegate() {
+
+        client.close();
+
+        verify(delegate).close();
+    }
+}
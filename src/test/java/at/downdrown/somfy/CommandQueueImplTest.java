@@ -0,0 +1,139 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CommandQueueImplTest {
+
+    @Test
+    public void submit_shouldCollapseSupersededMovingCommands() {
+
+        SentCommands sentCommands = new SentCommands();
+        CommandQueueImpl commandQueue = new CommandQueueImpl(sentCommands.client());
+
+        CompletableFuture<String> position40 = commandQueue.submit(position(40), "1");
+        CompletableFuture<String> position60 = commandQueue.submit(position(60), "1");
+        CompletableFuture<String> identify = commandQueue.submit(Command.ofCapability(Capability.IDENTIFY), "1");
+        CompletableFuture<String> close = commandQueue.submit(Command.ofCapability(Capability.CLOSE), "1");
+        CompletableFuture<String> stop = commandQueue.submit(Command.ofCapability(Capability.STOP), "1");
+        CompletableFuture<String> secondStop = commandQueue.submit(Command.ofCapability(Capability.STOP), "1");
+
+        assertThat(sentCommands.names()).containsExactly("position");
+
+        sentCommands.complete(0, "job-1");
+        assertThat(position40).isCompletedWithValue("job-1");
+        assertThat(sentCommands.names()).containsExactly("position", "identify");
+
+        sentCommands.complete(1, "job-2");
+        assertThat(identify).isCompletedWithValue("job-2");
+        assertThat(sentCommands.names()).containsExactly("position", "identify", "stop");
+
+        sentCommands.complete(2, "job-3");
+        assertThat(List.of(position60, close, stop, secondStop))
+            .allSatisfy(result -> assertThat(result).isCompletedWithValue("job-3"));
+        assertThat(commandQueue.getQueuedDeviceCount()).isZero();
+    }
+
+    @Test
+    public void submit_shouldSendCommandsForDifferentDevicesInParallel() {
+
+        SentCommands sentCommands = new SentCommands();
+        CommandQueue commandQueue = new CommandQueueImpl(sentCommands.client());
+
+        commandQueue.submit(position(40), "1");
+        commandQueue.submit(position(40), "2");
+        commandQueue.submit(Command.ofCapability(Capability.OPEN), "1");
+
+        assertThat(sentCommands.deviceIds()).containsExactly("1", "2");
+    }
+
+    @Test
+    public void submit_shouldPropagateFailuresToSupersededCommands() {
+
+        SentCommands sentCommands = new SentCommands();
+        CommandQueue commandQueue = new CommandQueueImpl(sentCommands.client());
+
+        commandQueue.submit(Command.ofCapability(Capability.IDENTIFY), "1");
+        CompletableFuture<String> open = commandQueue.submit(Command.ofCapability(Capability.OPEN), "1");
+        CompletableFuture<String> close = commandQueue.submit(Command.ofCapability(Capability.CLOSE), "1");
+
+        sentCommands.complete(0, "job-1");
+        sentCommands.fail(1, new IllegalStateException("Somfy is down"));
+
+        assertThat(List.of(open, close))
+            .allSatisfy(result -> assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    public void submit_shouldKeepSendingIfExecuteThrows() {
+
+        SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+        when(client.executeAsync(any(), anyString()))
+            .thenThrow(new NullPointerException("command"))
+            .thenReturn(CompletableFuture.completedFuture("job-2"));
+        CommandQueue commandQueue = new CommandQueueImpl(client);
+
+        CompletableFuture<String> identify = commandQueue.submit(Command.ofCapability(Capability.IDENTIFY), "1");
+        CompletableFuture<String> open = commandQueue.submit(Command.ofCapability(Capability.OPEN), "1");
+
+        assertThatThrownBy(identify::join).hasCauseInstanceOf(NullPointerException.class);
+        assertThat(open.join()).isEqualTo("job-2");
+    }
+
+    private static Command position(int position) {
+        return Command.ofCapability(Capability.POSITION,
+            Command.Parameter.ofCapabilityParameter(Capability.Parameter.POSITION, position));
+    }
+
+    /**
+     * Records all commands sent through a mocked {@link SomfyAsyncClient} and lets the test complete them.
+     */
+    private static final class SentCommands {
+
+        private final List<String> names = new CopyOnWriteArrayList<>();
+        private final List<String> deviceIds = new CopyOnWriteArrayList<>();
+        private final Map<Integer, CompletableFuture<String>> results = new ConcurrentHashMap<>();
+
+        private SomfyAsyncClient client() {
+            SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+            when(client.executeAsync(any(), anyString())).thenAnswer(invocation -> {
+                CompletableFuture<String> result = new CompletableFuture<>();
+                results.put(names.size(), result);
+                names.add(invocation.<Command>getArgument(0).getName());
+                deviceIds.add(invocation.getArgument(1));
+                return result;
+            });
+            return client;
+        }
+
+        private List<String> names() {
+            return names;
+        }
+
+        private List<String> deviceIds() {
+            return deviceIds;
+        }
+
+        private void complete(int index, String jobId) {
+            results.get(index).complete(jobId);
+        }
+
+        private void fail(int index, Throwable failure) {
+            results.get(index).completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceType;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceIndexTest {
+
+    private DeviceIndex index;
+
+    private static Device device(String id, String siteId, String parentId, DeviceType type, Category... categories) {
+        Device device = new Device();
+        device.setId(id);
+        device.setSiteId(siteId);
+        device.setParentId(parentId);
+        device.setType(type);
+        device.setCategories(Set.of(categories));
+        device.setAvailable(true);
+        return device;
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        index = new DeviceIndex();
+        index.updateSite("site", List.of(
+            device("hub", "site", null, DeviceType.HUB_CONNEXOON, Category.HUB),
+            device("1", "site", "hub", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Category.ACTUATOR, Category.ROLLER_SHUTTER),
+            device("2", "site", "hub", DeviceType.DISCRETE_GENERIC, Category.ACTUATOR, Category.ROLLER_SHUTTER),
+            device("3", "site", "1", DeviceType.POSITIONABLE_STATEFUL_RS100, Category.ROLLER_SHUTTER)));
+        index.update(device("4", "other-site", "other-hub", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Category.ROLLER_SHUTTER));
+    }
+
+    @Test
+    public void query_shouldIntersectAllConditions() {
+
+        assertThat(index.query()
+            .site("site")
+            .under("hub")
+            .category(Category.ROLLER_SHUTTER)
+            .capability(Capability.POSITION)
+            .ids()).containsExactly("1", "3");
+
+        assertThat(index.query().parent("hub").ids()).containsExactly("1", "2");
+        assertThat(index.query().type(DeviceType.POSITIONABLE_STATEFUL_GENERIC).count()).isEqualTo(2);
+        assertThat(index.query().site("unknown").list()).isEmpty();
+        assertThat(index.query().count()).isEqualTo(5);
+    }
+
+    @Test
+    public void update_shouldReplaceIndexedDevice() {
+
+        Device unavailable = device("1", "site", "hub", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Category.ROLLER_SHUTTER);
+        unavailable.setAvailable(false);
+        index.update(unavailable);
+
+        assertThat(index.get("1")).isSameAs(unavailable);
+        assertThat(index.query().category(Category.ACTUATOR).ids()).containsExactly("2");
+        assertThat(index.query().site("site").available().ids()).containsExactly("hub", "2", "3");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void updateSite_shouldRemoveDevicesThatAreNoLongerListed() {
+
+        index.updateSite("site", List.of(device("hub", "site", null, DeviceType.HUB_CONNEXOON, Category.HUB)));
+
+        assertThat(index.query().site("site").ids()).containsExactly("hub");
+        assertThat(index.query().under("hub").count()).isZero();
+        assertThat(index.get("1")).isNull();
+        assertThat(index.query().ids()).containsExactly("hub", "4");
+    }
+
+    @Test
+    public void update_shouldReuseSlotsOfRemovedDevices() {
+
+        assertThat(index.remove("2")).isTrue();
+        assertThat(index.remove("2")).isFalse();
+        index.update(device("5", "site", "hub", DeviceType.DISCRETE_GENERIC, Category.ROLLER_SHUTTER));
+
+        assertThat(index.query().parent("hub").ids()).containsExactly("1", "5");
+    }
+}
@@ -0,0 +1,181 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyPollingProperties;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.State;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeviceStatePollerImplTest {
+
+    @Test
+    public void poll_shouldPublishChangedStatesOnly() throws Exception {
+
+        SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+        when(client.listDevicesAsync("site"))
+            .thenReturn(devices(device("1", state("position", 0.0)), device("2", state("position", 100.0))))
+            .thenReturn(devices(device("1", state("position", 50.0)), device("2", state("position", 100.0))))
+            .thenReturn(devices(device("1", state("position", 50.0)), device("2", state("position", 100.0))));
+
+        SomfyPollingProperties properties = SomfyPollingProperties.builder()
+            .idleInterval(Duration.ofMillis(10))
+            .activeInterval(Duration.ofMillis(10))
+            .build();
+
+        try (DeviceStatePoller poller = new DeviceStatePollerImpl(client, properties, System::nanoTime, ForkJoinPool.commonPool())) {
+            BlockingQueue<DeviceStateChange> changes = subscribe(poller);
+            poller.poll("site");
+
+            DeviceStateChange change = changes.poll(5, TimeUnit.SECONDS);
+            assertThat(change).isNotNull();
+            assertThat(change.getDeviceId()).isEqualTo("1");
+            assertThat(change.getPreviousState().getValue()).isEqualTo(0);
+            assertThat(change.getState().getValue()).isEqualTo(50);
+
+            verify(client, timeout(5000).atLeast(4)).listDevicesAsync("site");
+            assertThat(changes).isEmpty();
+        }
+    }
+
+    @Test
+    public void poll_shouldPublishRemovedStatesAndDevices() throws Exception {
+
+        SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+        when(client.listDevicesAsync("site"))
+            .thenReturn(devices(device("1", state("position", 0.0), state("orientation", 90.0)), device("2", state("position", 100.0))))
+            .thenReturn(devices(device("1", state("position", 0.0))));
+
+        SomfyPollingProperties properties = SomfyPollingProperties.builder()
+            .idleInterval(Duration.ofMillis(10))
+            .activeInterval(Duration.ofMillis(10))
+            .build();
+
+        try (DeviceStatePoller poller = new DeviceStatePollerImpl(client, properties, System::nanoTime, ForkJoinPool.commonPool())) {
+            BlockingQueue<DeviceStateChange> changes = subscribe(poller);
+            poller.poll("site");
+
+            List<DeviceStateChange> removals = List.of(changes.poll(5, TimeUnit.SECONDS), changes.poll(5, TimeUnit.SECONDS));
+            assertThat(removals)
+                .extracting(DeviceStateChange::getDeviceId, change -> change.getPreviousState().getName(), DeviceStateChange::getState)
+                .containsExactlyInAnyOrder(tuple("1", "orientation", null), tuple("2", "position", null));
+
+            verify(client, timeout(5000).atLeast(3)).listDevicesAsync("site");
+            assertThat(changes).isEmpty();
+        }
+    }
+
+    @Test
+    public void onExecuted_shouldPollInActiveIntervalAndSlowDownWhenIdle() {
+
+        SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+        when(client.listDevicesAsync("site"))
+            .thenReturn(devices(device("1", state("position", 0.0))));
+
+        SomfyPollingProperties properties = SomfyPollingProperties.builder()
+            .idleInterval(Duration.ofHours(1))
+            .activeInterval(Duration.ofHours(1).dividedBy(8))
+            .activePeriod(Duration.ofMinutes(1))
+            .build();
+
+        AtomicLong nanoClock = new AtomicLong();
+        DeviceStatePollerImpl poller = new DeviceStatePollerImpl(client, properties, nanoClock::get, ForkJoinPool.commonPool());
+        try {
+            poller.poll("site");
+            verify(client, timeout(5000)).listDevicesAsync("site");
+            assertThat(poller.getInterval("site")).isEqualTo(Duration.ofHours(1));
+
+            poller.onExecuted("1");
+            assertThat(poller.getInterval("site")).isEqualTo(Duration.ofMinutes(7).plusSeconds(30));
+        } finally {
+            poller.close();
+        }
+    }
+
+    @Test
+    public void close_shouldCompleteSubscribers() throws Exception {
+
+        SomfyAsyncClient client = mock(SomfyAsyncClient.class);
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+
+        DeviceStatePoller poller = new DeviceStatePollerImpl(client, SomfyPollingProperties.builder().build(), System::nanoTime, ForkJoinPool.commonPool());
+        poller.subscribe(new CollectingSubscriber(new LinkedBlockingQueue<>()) {
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+        poller.close();
+
+        assertThat(completed.get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    private static BlockingQueue<DeviceStateChange> subscribe(DeviceStatePoller poller) {
+        BlockingQueue<DeviceStateChange> changes = new LinkedBlockingQueue<>();
+        poller.subscribe(new CollectingSubscriber(changes));
+        return changes;
+    }
+
+    private static CompletableFuture<List<Device>> devices(Device... devices) {
+        return CompletableFuture.completedFuture(List.of(devices));
+    }
+
+    private static Device device(String id, State... states) {
+        Device device = new Device();
+        device.setId(id);
+        device.setSiteId("site");
+        device.setStates(Set.of(states));
+        return device;
+    }
+
+    private static State state(String name, Object value) {
+        State state = new State();
+        state.setName(name);
+        state.setValue(value);
+        state.setType("integer");
+        return state;
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<DeviceStateChange> {
+
+        private final BlockingQueue<DeviceStateChange> changes;
+
+        private CollectingSubscriber(BlockingQueue<DeviceStateChange> changes) {
+            this.changes = changes;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(DeviceStateChange change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
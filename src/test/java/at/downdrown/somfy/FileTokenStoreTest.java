@@ -0,0 +1,60 @@
+package at.downdrown.somfy;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileTokenStoreTest {
+
+    private final SomfyToken token = new SomfyToken(now(), "access-token", "refresh-token", now().plusHours(1));
+
+    @Test
+    public void load_shouldReturnEmptyIfNothingHasBeenStored() throws IOException {
+
+        TokenStore tokenStore = TokenStore.ofFile(Files.createTempDirectory("somfy").resolve("token.properties"));
+
+        assertThat(tokenStore.load()).isEmpty();
+    }
+
+    @Test
+    public void store_shouldReplaceTokenWithoutLeavingTemporaryFiles() throws IOException {
+
+        Path directory = Files.createTempDirectory("somfy");
+        Path tokenFile = directory.resolve("nested").resolve("token.properties");
+        TokenStore tokenStore = TokenStore.ofFile(tokenFile);
+
+        tokenStore.store(new SomfyToken(now(), "old-access-token", "old-refresh-token", now()));
+        tokenStore.store(token);
+
+        assertThat(TokenStore.ofFile(tokenFile).load())
+            .hasValueSatisfying(storedToken -> {
+                assertThat(storedToken.getAccessToken()).isEqualTo("access-token");
+                assertThat(storedToken.getRefreshToken()).isEqualTo("refresh-token");
+                assertThat(storedToken.getIssuedAt()).isEqualTo(token.getIssuedAt());
+                assertThat(storedToken.getAccessTokenExpiresAt()).isEqualTo(token.getAccessTokenExpiresAt());
+            });
+        try (Stream<Path> files = Files.list(tokenFile.getParent())) {
+            assertThat(files).containsExactly(tokenFile);
+        }
+    }
+
+    @Test
+    public void load_shouldFailForMalformedFile() throws IOException {
+
+        Path tokenFile = Files.createTempFile("somfy", ".properties");
+        Files.write(tokenFile, "accessToken=access-token".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> TokenStore.ofFile(tokenFile).load())
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("Malformed");
+    }
+}
@@ -0,0 +1,99 @@
+package at.downdrown.somfy;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InFlightRequestsTest {
+
+    @Test
+    public void coalesce_shouldSendIdenticalConcurrentRequestsOnce() throws Exception {
+
+        InFlightRequests inFlightRequests = new InFlightRequests(true);
+        AtomicInteger sentRequests = new AtomicInteger();
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        CountDownLatch releaseRequest = new CountDownLatch(1);
+        Object result = new Object();
+
+        InFlightRequests.Request<Object> request = () -> {
+            sentRequests.incrementAndGet();
+            requestStarted.countDown();
+            try {
+                releaseRequest.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return result;
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(executor.submit(() -> inFlightRequests.coalesce("/device/1", request)));
+            assertThat(requestStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> inFlightRequests.coalesce("/device/1", request)));
+            }
+            Thread.sleep(50);
+            releaseRequest.countDown();
+
+            for (Future<Object> future : results) {
+                assertThat(future.get(1, TimeUnit.SECONDS)).isSameAs(result);
+            }
+            assertThat(sentRequests.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void coalesce_shouldSendSequentialRequestsAgain() throws Exception {
+
+        InFlightRequests inFlightRequests = new InFlightRequests(true);
+        AtomicInteger sentRequests = new AtomicInteger();
+
+        inFlightRequests.coalesce("/site", sentRequests::incrementAndGet);
+        inFlightRequests.coalesce("/site", sentRequests::incrementAndGet);
+
+        assertThat(sentRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void coalesce_shouldPropagateFailures() {
+
+        InFlightRequests inFlightRequests = new InFlightRequests(true);
+
+        assertThatThrownBy(() -> inFlightRequests.coalesce("/site", () -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void coalesceAsync_shouldNotKeepRequestsThatFailToStart() throws Exception {
+
+        InFlightRequests inFlightRequests = new InFlightRequests(true);
+
+        CompletableFuture<Object> failed = inFlightRequests.coalesceAsync("/device/null", () -> {
+            throw new NullPointerException("deviceId");
+        });
+
+        assertThatThrownBy(() -> failed.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(NullPointerException.class);
+        assertThat(inFlightRequests.coalesceAsync("/device/null", () -> CompletableFuture.completedFuture((Object) "device"))
+            .get(1, TimeUnit.SECONDS))
+            .isEqualTo("device");
+    }
+}
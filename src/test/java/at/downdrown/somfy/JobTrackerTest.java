@@ -0,0 +1,109 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Job;
+import at.downdrown.somfy.domain.JobStatus;
+import at.downdrown.somfy.exception.SomfyApiRequestException;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JobTrackerTest {
+
+    @Test
+    public void track_shouldCompleteOnceJobsReachTerminalStatus() throws Exception {
+
+        Map<String, JobStatus> statuses = new ConcurrentHashMap<>(Map.of("1", JobStatus.IN_PROGRESS, "2", JobStatus.PENDING));
+        AtomicInteger lookups = new AtomicInteger();
+        JobTracker jobTracker = new JobTracker(jobId -> {
+            lookups.incrementAndGet();
+            return CompletableFuture.completedFuture(job(jobId, statuses.get(jobId)));
+        }, Duration.ofMillis(10), Duration.ofMinutes(1), System::nanoTime, ForkJoinPool.commonPool());
+
+        CompletableFuture<JobResult> first = jobTracker.track("1");
+        CompletableFuture<JobResult> second = jobTracker.track("2");
+        assertThat(jobTracker.track("1")).isSameAs(first);
+
+        statuses.put("1", JobStatus.COMPLETED);
+        statuses.put("2", JobStatus.FAILED);
+
+        assertThat(first.get(5, TimeUnit.SECONDS).isSuccessful()).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(jobTracker.getTrackedJobCount()).isZero();
+
+        // no more sweeps once all jobs are done
+        int lookupsAfterCompletion = lookups.get();
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertThat(lookups.get()).isEqualTo(lookupsAfterCompletion);
+    }
+
+    @Test
+    public void track_shouldTimeOutJobsThatDoNotFinish() {
+
+        JobTracker jobTracker = new JobTracker(jobId -> CompletableFuture.completedFuture(job(jobId, JobStatus.IN_PROGRESS)),
+            Duration.ofMillis(10), Duration.ofMillis(30), System::nanoTime, ForkJoinPool.commonPool());
+
+        CompletableFuture<JobResult> result = jobTracker.track("1");
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    public void track_shouldFailJobsWithUnknownStatus() {
+
+        JobTracker jobTracker = new JobTracker(jobId -> CompletableFuture.completedFuture(job(jobId, JobStatus.UNKNOWN)),
+            Duration.ofMillis(10), Duration.ofHours(1), System::nanoTime, ForkJoinPool.commonPool());
+
+        CompletableFuture<JobResult> result = jobTracker.track("1");
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void track_shouldKeepPollingWhenLookupFails() throws Exception {
+
+        AtomicInteger lookups = new AtomicInteger();
+        JobTracker jobTracker = new JobTracker(jobId -> lookups.incrementAndGet() == 1
+            ? CompletableFuture.failedFuture(new SomfyApiRequestException("Somfy is down", URI.create("https://api.somfy.com/api/v1/job/1"), 502))
+            : CompletableFuture.completedFuture(job(jobId, JobStatus.COMPLETED)),
+            Duration.ofMillis(10), Duration.ofMinutes(1), System::nanoTime, ForkJoinPool.commonPool());
+
+        assertThat(jobTracker.track("1").get(5, TimeUnit.SECONDS).getStatus())
+            .isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    public void track_shouldFailJobsThatCannotBeLookedUp() {
+
+        AtomicInteger lookups = new AtomicInteger();
+        JobTracker jobTracker = new JobTracker(jobId -> {
+            lookups.incrementAndGet();
+            return CompletableFuture.failedFuture(new SomfyApiRequestException("Not found", URI.create("https://api.somfy.com/api/v1/job/1"), 404));
+        }, Duration.ofMillis(10), Duration.ofHours(1), System::nanoTime, ForkJoinPool.commonPool());
+
+        CompletableFuture<JobResult> result = jobTracker.track("1");
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(SomfyApiRequestException.class);
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+
+    private static Job job(String jobId, JobStatus status) {
+        Job job = new Job();
+        job.setId(jobId);
+        job.setStatus(status);
+        return job;
+    }
+}
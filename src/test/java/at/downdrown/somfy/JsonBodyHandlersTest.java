@@ -0,0 +1,123 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Device;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonBodyHandlersTest {
+
+    private static final String DEVICE = "{\"id\":\"a-device-id\",\"site_id\":\"a-site-id\",\"name\":\"Living room\"}";
+
+    @Test
+    public void ofDecodingReader_shouldDecodeGzip() throws Exception {
+
+        try (Reader reader = receive(HTTP_OK, "gzip", gzip(DEVICE))) {
+            assertThat(Json.fromJson(reader, Device.class).getName()).isEqualTo("Living room");
+        }
+    }
+
+    @Test
+    public void ofDecodingReader_shouldDecodeDeflate() throws Exception {
+
+        try (Reader reader = receive(HTTP_OK, "deflate", deflate(DEVICE))) {
+            assertThat(Json.fromJson(reader, Device.class).getName()).isEqualTo("Living room");
+        }
+    }
+
+    @Test
+    public void ofDecodingReader_shouldPassThroughUncompressedBodies() throws Exception {
+
+        try (Reader reader = receive(HTTP_OK, null, DEVICE.getBytes(StandardCharsets.UTF_8))) {
+            assertThat(Json.fromJson(reader, Device.class).getName()).isEqualTo("Living room");
+        }
+    }
+
+    @Test
+    public void ofDecodingReader_shouldRejectUnsupportedEncodings() throws Exception {
+
+        try (Reader reader = receive(HTTP_OK, "br", new byte[]{1, 2, 3})) {
+            assertThatThrownBy(reader::read)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("br");
+        }
+    }
+
+    @Test
+    public void ofDecodingReader_shouldDiscardBodyOfUnsuccessfulResponses() throws Exception {
+
+        assertThat(receive(HTTP_NOT_MODIFIED, "gzip", new byte[0])).isNull();
+    }
+
+    private static Reader receive(int statusCode, String contentEncoding, byte[] body) throws Exception {
+        final HttpHeaders headers = HttpHeaders.of(
+            contentEncoding == null ? Map.of() : Map.of("Content-Encoding", List.of(contentEncoding)),
+            (name, value) -> true);
+        final HttpResponse.BodySubscriber<Reader> subscriber = JsonBodyHandlers.ofDecodingReader().apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        });
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        // deliver the body in two chunks, like the client would
+        final int half = body.length / 2;
+        subscriber.onNext(List.of(ByteBuffer.wrap(body, 0, half)));
+        subscriber.onNext(List.of(ByteBuffer.wrap(body, half, body.length - half)));
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().get();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(String content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Category;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceStates;
+import at.downdrown.somfy.domain.DeviceType;
+import at.downdrown.somfy.domain.Job;
+import at.downdrown.somfy.domain.JobStatus;
+import at.downdrown.somfy.domain.StateType;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonTest {
+
+    @Test
+    public void fromJson_shouldMapKnownIdentifications() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"type\": \"roller_shutter_positionable_stateful_rs100\"," +
+            "\"categories\": [\"actuator\", \"roller_shutter\"]," +
+            "\"capabilities\": [{\"name\": \"position\", \"parameters\": [{\"name\": \"position\", \"type\": \"integer\"}]}, {\"name\": \"stop\", \"parameters\": []}]" +
+            "}", Device.class);
+
+        assertThat(device.getType()).isEqualTo(DeviceType.POSITIONABLE_STATEFUL_RS100);
+        assertThat(device.getCategories()).containsExactlyInAnyOrder(Category.ACTUATOR, Category.ROLLER_SHUTTER);
+        assertThat(device.getCapabilities()).containsExactlyInAnyOrder(Capability.POSITION, Capability.STOP);
+    }
+
+    @Test
+    public void fromJson_shouldMapUnknownIdentificationsToUnknown() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"type\": \"a_brand_new_device_type\"," +
+            "\"categories\": [\"a_brand_new_category\"]," +
+            "\"capabilities\": [{\"name\": \"a_brand_new_capability\", \"parameters\": []}]" +
+            "}", Device.class);
+
+        assertThat(device.getType()).isEqualTo(DeviceType.UNKNOWN);
+        assertThat(device.getCategories()).containsExactly(Category.UNKNOWN);
+        assertThat(device.getCapabilities()).containsExactly(Capability.UNKNOWN);
+    }
+
+    @Test
+    public void toJson_shouldWriteIdentifications() {
+
+        Device device = new Device();
+        device.setType(DeviceType.HUB_CONNEXOON);
+
+        assertThat(Json.toJson(device))
+            .contains("\"type\":\"hub_connexoon\"");
+    }
+
+    @Test
+    public void fromJson_shouldMapJobStatus() {
+
+        Job job = Json.fromJson("{\"id\": \"42\", \"status\": \"completed\"}", Job.class);
+
+        assertThat(job.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(job.getStatus().isTerminal()).isTrue();
+    }
+
+    @Test
+    public void fromJson_shouldReadTypedStates() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"states\": [" +
+            "{\"name\": \"position\", \"value\": 42, \"type\": \"integer\"}," +
+            "{\"type\": \"float\", \"name\": \"orientation\", \"value\": 12.5}," +
+            "{\"name\": \"moving\", \"value\": true, \"type\": \"boolean\"}," +
+            "{\"name\": \"mode\", \"value\": \"auto\", \"type\": \"string\"}," +
+            "{\"name\": \"schedule\", \"value\": {\"at\": \"08:00\"}, \"type\": \"a_brand_new_type\"}" +
+            "]}", Device.class);
+
+        DeviceStates states = device.getDeviceStates();
+        assertThat(states.size()).isEqualTo(5);
+        assertThat(states.getInt("position")).isEqualTo(42);
+        assertThat(states.getDouble("position")).isEqualTo(42.0);
+        assertThat(states.getDouble("orientation")).isEqualTo(12.5);
+        assertThat(states.getBoolean("moving")).isTrue();
+        assertThat(states.getString("mode")).isEqualTo("auto");
+        assertThat(states.getType("schedule")).isEqualTo(StateType.UNKNOWN);
+        assertThat(states.getValue("schedule")).isEqualTo(Map.of("at", "08:00"));
+        assertThat(states.getState("position").getValue()).isEqualTo(42);
+        assertThatThrownBy(() -> states.getInt("moving")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> states.getInt("unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void fromJson_shouldSkipStatesWithoutName() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"states\": [" +
+            "{\"name\": null, \"value\": 1, \"type\": \"integer\"}," +
+            "{\"name\": \"position\", \"value\": 42, \"type\": null}" +
+            "]}", Device.class);
+
+        DeviceStates states = device.getDeviceStates();
+        assertThat(states.size()).isEqualTo(1);
+        assertThat(states.getType("position")).isEqualTo(StateType.UNKNOWN);
+        assertThat(states.getDouble("position")).isEqualTo(42.0);
+    }
+
+    @Test
+    public void fromJson_shouldKeepLargeIntegersAsLong() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"states\": [{\"name\": \"uptime\", \"value\": 4294967296, \"type\": \"integer\"}]" +
+            "}", Device.class);
+
+        DeviceStates states = device.getDeviceStates();
+        assertThat(states.getLong("uptime")).isEqualTo(4294967296L);
+        assertThat(states.getDouble("uptime")).isEqualTo(4294967296.0);
+        assertThat(states.getValue("uptime")).isEqualTo(4294967296L);
+        assertThatThrownBy(() -> states.getInt("uptime")).isInstanceOf(IllegalStateException.class);
+        assertThat(Json.fromJson(Json.toJson(device), Device.class)).isEqualTo(device);
+    }
+
+    @Test
+    public void fromJson_shouldKeepIntegersBeyondDoublePrecision() {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"states\": [" +
+            "{\"name\": \"counter\", \"type\": \"integer\", \"value\": 9007199254740993}," +
+            "{\"value\": 9007199254740995, \"name\": \"energy\", \"type\": \"integer\"}," +
+            "{\"name\": \"fraction\", \"type\": \"integer\", \"value\": 1.5}" +
+            "]}", Device.class);
+
+        DeviceStates states = device.getDeviceStates();
+        assertThat(states.getLong("counter")).isEqualTo(9007199254740993L);
+        assertThat(states.getLong("energy")).isEqualTo(9007199254740995L);
+        assertThat(states.getDouble("fraction")).isEqualTo(1.5);
+        assertThat(DeviceStates.of(states.toStates())).isEqualTo(states);
+    }
+
+    @Test
+    public void toJson_shouldWriteTypedStates() {
+
+        Device device = new Device();
+        device.setDeviceStates(DeviceStates.builder().addInt("position", 42).addBoolean("moving", false).build());
+
+        String json = Json.toJson(device);
+
+        assertThat(json).contains("{\"name\":\"position\",\"value\":42,\"type\":\"integer\"}");
+        assertThat(Json.fromJson(json, Device.class)).isEqualTo(device);
+    }
+}
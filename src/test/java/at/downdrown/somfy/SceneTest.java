@@ -0,0 +1,80 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Capability;
+import at.downdrown.somfy.domain.Command;
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceType;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static at.downdrown.somfy.domain.Command.Parameter.ofCapabilityParameter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SceneTest {
+
+    @Test
+    public void build_shouldShareBodiesOfEqualCommandsAndSplitWaves() {
+
+        Scene scene = Scene.builder("morning")
+            .command("1", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Command.ofCapability(Capability.OPEN))
+            .command("2", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Command.ofCapability(Capability.OPEN))
+            .command("3", DeviceType.POSITIONABLE_STATEFUL_GENERIC,
+                Command.ofCapability(Capability.POSITION, ofCapabilityParameter(Capability.Parameter.POSITION, 50)))
+            .staggered(2, Duration.ofSeconds(1))
+            .build();
+
+        List<List<PreparedExecution>> waves = scene.getWaves();
+
+        assertThat(scene.getDeviceIds()).containsExactly("1", "2", "3");
+        assertThat(waves).hasSize(2);
+        assertThat(waves.get(0).get(0).getBody()).isSameAs(waves.get(0).get(1).getBody());
+        assertThat(waves.get(1).get(0).getBody()).isNotSameAs(waves.get(0).get(0).getBody());
+    }
+
+    @Test
+    public void build_shouldSendAllAtOnceByDefault() {
+
+        Scene scene = Scene.builder("storm")
+            .command("1", DeviceType.DISCRETE_GENERIC, Command.ofCapability(Capability.CLOSE))
+            .command("2", DeviceType.DISCRETE_GENERIC, Command.ofCapability(Capability.CLOSE))
+            .build();
+
+        assertThat(scene.getWaves()).hasSize(1);
+        assertThat(scene.getWaveInterval()).isZero();
+    }
+
+    @Test
+    public void command_shouldRejectUnsupportedCommands() {
+
+        Scene.Builder builder = Scene.builder("morning");
+
+        assertThatThrownBy(() -> builder.command("1", DeviceType.DISCRETE_GENERIC,
+            Command.ofCapability(Capability.POSITION, ofCapabilityParameter(Capability.Parameter.POSITION, 50))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> builder.command("1", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Command.ofCapability(Capability.POSITION)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("position");
+        assertThatThrownBy(() -> builder.command("1", DeviceType.POSITIONABLE_STATEFUL_GENERIC,
+            Command.ofCapability(Capability.POSITION, ofCapabilityParameter(Capability.Parameter.POSITION, "50"))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void command_shouldValidateAgainstCapabilitiesListedByDevice() {
+
+        Device device = new Device();
+        device.setId("1");
+        device.setType(DeviceType.UNKNOWN);
+        device.setCapabilities(Set.of(Capability.OPEN));
+
+        Scene.Builder builder = Scene.builder("morning").command(device, Command.ofCapability(Capability.OPEN));
+
+        assertThatThrownBy(() -> builder.command(device, Command.ofCapability(Capability.OPEN)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("already");
+    }
+}
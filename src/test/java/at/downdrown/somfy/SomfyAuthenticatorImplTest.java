@@ -12,12 +12,18 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertThrows;
@@ -157,4 +163,90 @@ public class SomfyAuthenticatorImplTest {
         assertThat(somfyToken).isSameAs(currentToken);
 
     }
+
+    @Test
+    public void refreshTokenAsync_shouldRefreshToken() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("token.json"));
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyToken currentToken = new SomfyToken(now().minusHours(1), "access-token", "refresh-token", now().minusMinutes(1));
+
+        SomfyAuthenticator authenticator = SomfyAuthenticator.newAuthenticator(properties, mockHttpClient);
+        SomfyToken somfyToken = authenticator.refreshTokenAsync(currentToken).join();
+
+        assertThat(somfyToken)
+            .extracting(
+                SomfyToken::getAccessToken,
+                SomfyToken::getRefreshToken)
+            .containsExactly(
+                "a-valid-access-token",
+                "a-valid-refresh-token"
+            );
+    }
+
+    @Test
+    public void refreshTokenAsync_shouldFailWithTokenFetchException() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_UNAUTHORIZED);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyToken currentToken = new SomfyToken(now().minusHours(1), "access-token", "refresh-token", now().minusMinutes(1));
+
+        SomfyAuthenticator authenticator = SomfyAuthenticator.newAuthenticator(properties, mockHttpClient);
+
+        assertThat(authenticator.refreshTokenAsync(currentToken))
+            .hasFailedWithThrowableThat()
+            .isInstanceOf(SomfyTokenFetchException.class);
+    }
+
+    @Test
+    public void refreshTokenAsync_shouldDelegateToRefreshTokenByDefault() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        SomfyToken currentToken = new SomfyToken(now().minusHours(1), "access-token", "refresh-token", now().minusMinutes(1));
+        SomfyToken refreshedToken = new SomfyToken(now(), "a-valid-access-token", "a-valid-refresh-token", now().plusHours(1));
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class, CALLS_REAL_METHODS);
+        doReturn(refreshedToken).when(authenticator).refreshToken(currentToken);
+
+        assertThat(authenticator.refreshTokenAsync(currentToken).join())
+            .isSameAs(refreshedToken);
+
+        doThrow(new SomfyTokenFetchException("Somfy is down")).when(authenticator).refreshToken(currentToken);
+
+        assertThatThrownBy(() -> authenticator.refreshTokenAsync(currentToken).join())
+            .hasCauseInstanceOf(SomfyTokenFetchException.class);
+    }
+
+    @Test
+    public void redact_shouldMaskSecrets() {
+
+        URI tokenUri = URI.create("https://accounts.somfy.com/oauth/oauth/v2/token" +
+            "?client_id=a-consumer-key&client_secret=a-consumer-secret&refresh_token=a-refresh-token&grant_type=refresh_token");
+
+        assertThat(SomfyAuthenticatorImpl.redact(tokenUri))
+            .isEqualTo("https://accounts.somfy.com/oauth/oauth/v2/token" +
+                "?client_id=a-consumer-key&client_secret=***&refresh_token=***&grant_type=refresh_token");
+    }
+
+    @Test
+    public void accessTokenResponse_shouldNotRenderTokens() {
+
+        SomfyAuthenticatorImpl.AccessTokenResponse accessTokenResponse = Json.fromJson(readFile("token.json"), SomfyAuthenticatorImpl.AccessTokenResponse.class);
+
+        assertThat(accessTokenResponse.toString())
+            .contains("expiresIn=3600")
+            .doesNotContain("a-valid-access-token")
+            .doesNotContain("a-valid-refresh-token");
+    }
 }
@@ -1,32 +1,58 @@
 package at.downdrown.somfy;
 
+import at.downdrown.somfy.config.RetryPolicy;
+import at.downdrown.somfy.config.SomfyHttpOptions;
 import at.downdrown.somfy.config.SomfyProperties;
 import at.downdrown.somfy.domain.Capability;
 import at.downdrown.somfy.domain.Command;
 import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceType;
 import at.downdrown.somfy.domain.Site;
+import at.downdrown.somfy.exception.SomfyApiRequestException;
 import at.downdrown.somfy.exception.SomfyTokenExpiredException;
 import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import org.mockito.ArgumentCaptor;
 import org.testng.annotations.Test;
 import org.testng.reporters.Files;
 
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.net.HttpURLConnection.HTTP_BAD_GATEWAY;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings("unchecked")
 public class SomfyClientImplTest {
 
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (name, value) -> true);
+
     private final SomfyProperties properties = SomfyProperties.builder()
         .callbackUrl("https://my.callback.url")
         .consumerKey("a-consumer-key")
@@ -55,6 +81,8 @@ public class SomfyClientImplTest {
         when(mockResponse.statusCode()).thenReturn(HTTP_OK);
         when(mockResponse.body())
             .thenReturn(readFile("sites.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
 
         HttpClient mockHttpClient = mock(HttpClient.class);
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
@@ -77,6 +105,8 @@ public class SomfyClientImplTest {
         when(mockResponse.statusCode()).thenReturn(HTTP_OK);
         when(mockResponse.body())
             .thenReturn(readFile("site.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
 
         HttpClient mockHttpClient = mock(HttpClient.class);
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
@@ -98,6 +128,8 @@ public class SomfyClientImplTest {
         when(mockResponse.statusCode()).thenReturn(HTTP_OK);
         when(mockResponse.body())
             .thenReturn(readFile("devices.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
 
         HttpClient mockHttpClient = mock(HttpClient.class);
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
@@ -111,6 +143,48 @@ public class SomfyClientImplTest {
             .hasSize(17);
     }
 
+    @Test
+    public void streamDevices() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<JsonReader> mockResponse = (HttpResponse<JsonReader>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(new JsonReader(new StringReader(readFile("devices.json"))));
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(mockResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+
+        try (Stream<Device> devices = client.streamDevices("1234-5678-91011-121314")) {
+            assertThat(devices.map(Device::getId).collect(Collectors.toList()))
+                .hasSize(17)
+                .startsWith("1", "2");
+        }
+    }
+
+    @Test
+    public void forEachDevice() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<JsonReader> mockResponse = (HttpResponse<JsonReader>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(new JsonReader(new StringReader(readFile("devices.json"))));
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(mockResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+        List<Device> devices = new ArrayList<>();
+        client.forEachDevice("1234-5678-91011-121314", devices::add);
+
+        assertThat(devices)
+            .hasSize(17)
+            .allSatisfy(device -> assertThat(device.getSiteId()).isEqualTo("1234-5678-91011-121314"));
+    }
+
     @Test
     public void execute() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
 
@@ -137,6 +211,8 @@ public class SomfyClientImplTest {
         when(mockResponse.statusCode()).thenReturn(HTTP_OK);
         when(mockResponse.body())
             .thenReturn(readFile("device.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
 
         HttpClient mockHttpClient = mock(HttpClient.class);
         when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
@@ -148,4 +224,454 @@ public class SomfyClientImplTest {
         assertThat(device)
             .isNotNull();
     }
+
+    @Test
+    public void listDevicesAsync() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("devices.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyAsyncClient client = SomfyAsyncClient.newAsyncClient(properties, token, mockHttpClient);
+        List<Device> devices = client.listDevicesAsync("1234-5678-91011-121314").join();
+
+        assertThat(devices)
+            .isNotEmpty()
+            .hasSize(17);
+    }
+
+    @Test
+    public void executeAsync() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("execution.json"));
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyAsyncClient client = SomfyAsyncClient.newAsyncClient(properties, token, mockHttpClient);
+        String jobId = client.executeAsync(Command.ofCapability(Capability.IDENTIFY), "1").join();
+
+        assertThat(jobId)
+            .isEqualTo("a-job-id");
+    }
+
+    @Test
+    public void executeAsync_shouldCompleteExceptionallyOnUnsuccessfulRequest() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_INTERNAL_ERROR);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyAsyncClient client = SomfyAsyncClient.newAsyncClient(properties, token, mockHttpClient);
+
+        assertThat(client.executeAsync(Command.ofCapability(Capability.IDENTIFY), "1"))
+            .hasFailedWithThrowableThat()
+            .isInstanceOf(SomfyApiRequestException.class);
+    }
+
+    @Test
+    public void executeAll() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        HttpResponse<String> successResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(HTTP_OK);
+        when(successResponse.body())
+            .thenReturn(readFile("execution.json"));
+
+        HttpResponse<String> failureResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(failureResponse.statusCode()).thenReturn(HTTP_INTERNAL_ERROR);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenAnswer(invocation -> {
+                HttpRequest request = invocation.getArgument(0);
+                return CompletableFuture.completedFuture(request.uri().getPath().contains("/device/2/")
+                    ? failureResponse
+                    : successResponse);
+            });
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+        Map<String, ExecutionResult> results = client.executeAll(Command.ofCapability(Capability.CLOSE), List.of("1", "2", "3"));
+
+        assertThat(results)
+            .containsOnlyKeys("1", "2", "3");
+        assertThat(results.get("1").getJobId())
+            .isEqualTo("a-job-id");
+        assertThat(results.get("2").isSuccessful())
+            .isFalse();
+        assertThat(results.get("2").getFailure())
+            .isInstanceOf(SomfyApiRequestException.class);
+        assertThat(results.get("3").isSuccessful())
+            .isTrue();
+    }
+
+    @Test
+    public void executeAll_shouldReportUnparseableResponsesPerDevice() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        HttpResponse<String> successResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(HTTP_OK);
+        when(successResponse.body())
+            .thenReturn(readFile("execution.json"));
+
+        HttpResponse<String> emptyResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(emptyResponse.statusCode()).thenReturn(HTTP_OK);
+        when(emptyResponse.body())
+            .thenReturn("");
+
+        HttpResponse<String> malformedResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(malformedResponse.statusCode()).thenReturn(HTTP_OK);
+        when(malformedResponse.body())
+            .thenReturn("<html>");
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenAnswer(invocation -> {
+                String path = ((HttpRequest) invocation.getArgument(0)).uri().getPath();
+                return CompletableFuture.completedFuture(path.contains("/device/2/")
+                    ? emptyResponse
+                    : path.contains("/device/3/") ? malformedResponse : successResponse);
+            });
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+        Map<String, ExecutionResult> results = client.executeAll(Command.ofCapability(Capability.CLOSE), List.of("1", "2", "3"));
+
+        assertThat(results)
+            .containsOnlyKeys("1", "2", "3");
+        assertThat(results.get("1").getJobId())
+            .isEqualTo("a-job-id");
+        assertThat(results.get("2").getFailure())
+            .isInstanceOf(JsonParseException.class);
+        assertThat(results.get("3").getFailure())
+            .isInstanceOf(JsonParseException.class);
+    }
+
+    @Test
+    public void activate_shouldDispatchWavesInOrder() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        HttpResponse<String> successResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(successResponse.statusCode()).thenReturn(HTTP_OK);
+        when(successResponse.body())
+            .thenReturn(readFile("execution.json"));
+
+        List<String> dispatchedPaths = new ArrayList<>();
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenAnswer(invocation -> {
+                HttpRequest request = invocation.getArgument(0);
+                synchronized (dispatchedPaths) {
+                    dispatchedPaths.add(request.uri().getPath());
+                }
+                return CompletableFuture.completedFuture(successResponse);
+            });
+
+        Scene scene = Scene.builder("storm")
+            .command("1", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Command.ofCapability(Capability.CLOSE))
+            .command("2", DeviceType.POSITIONABLE_STATEFUL_GENERIC, Command.ofCapability(Capability.CLOSE))
+            .command("3", DeviceType.DISCRETE_GENERIC, Command.ofCapability(Capability.OPEN))
+            .staggered(2, Duration.ofMillis(10))
+            .build();
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+        Map<String, ExecutionResult> results = client.activate(scene);
+
+        assertThat(results).containsOnlyKeys("1", "2", "3");
+        assertThat(results.values()).allMatch(ExecutionResult::isSuccessful);
+        assertThat(dispatchedPaths).hasSize(3);
+        assertThat(dispatchedPaths.get(2)).contains("/device/3/");
+    }
+
+    @Test
+    public void listDevices_shouldReturnPreviousDevicesIfNotModified() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<String> okResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(okResponse.statusCode()).thenReturn(HTTP_OK);
+        when(okResponse.body())
+            .thenReturn(readFile("devices.json"));
+        when(okResponse.headers())
+            .thenReturn(HttpHeaders.of(Map.of("ETag", List.of("\"v1\"")), (name, value) -> true));
+
+        HttpResponse<String> notModifiedResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(notModifiedResponse.statusCode()).thenReturn(HTTP_NOT_MODIFIED);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(okResponse, notModifiedResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+        List<Device> devices = client.listDevices("a-site-id");
+
+        assertThat(client.listDevices("a-site-id")).isSameAs(devices);
+
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockHttpClient, times(2)).send(requests.capture(), any(HttpResponse.BodyHandler.class));
+        assertThat(requests.getAllValues().get(0).headers().firstValue("If-None-Match")).isEmpty();
+        assertThat(requests.getAllValues().get(1).headers().firstValue("If-None-Match")).contains("\"v1\"");
+        verify(notModifiedResponse, never()).body();
+    }
+
+    @Test
+    public void listDevices_shouldFailIfNotModifiedWithoutConditionalRequest() throws IOException, InterruptedException {
+
+        HttpResponse<String> notModifiedResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(notModifiedResponse.statusCode()).thenReturn(HTTP_NOT_MODIFIED);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(notModifiedResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+
+        assertThatThrownBy(() -> client.listDevices("a-site-id"))
+            .isInstanceOf(SomfyApiRequestException.class)
+            .extracting("httpStatus")
+            .isEqualTo(HTTP_NOT_MODIFIED);
+    }
+
+    @Test
+    public void execute_shouldFailIfNotModifiedWithoutConditionalRequest() throws IOException, InterruptedException {
+
+        HttpResponse<String> notModifiedResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(notModifiedResponse.statusCode()).thenReturn(HTTP_NOT_MODIFIED);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(notModifiedResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+
+        assertThatThrownBy(() -> client.execute(Command.ofCapability(Capability.IDENTIFY), "1"))
+            .isInstanceOf(SomfyApiRequestException.class)
+            .extracting("httpStatus")
+            .isEqualTo(HTTP_NOT_MODIFIED);
+        verify(notModifiedResponse, never()).body();
+    }
+
+    @Test
+    public void listSites_shouldRetryThrottledRequests() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<String> throttledResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(throttledResponse.statusCode()).thenReturn(429);
+        when(throttledResponse.headers())
+            .thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (name, value) -> true));
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("sites.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(throttledResponse, throttledResponse, mockResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+
+        assertThat(client.listSites())
+            .hasSize(1);
+        verify(mockHttpClient, times(3)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void getDeviceById_shouldRetryTransientErrors() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<String> errorResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(HTTP_BAD_GATEWAY);
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("device.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenThrow(new IOException("connection reset"))
+            .thenReturn(errorResponse, mockResponse);
+
+        AtomicInteger attempts = new AtomicInteger();
+        SomfyClient client = SomfyClient.builder(retryingProperties(), token)
+            .httpClient(mockHttpClient)
+            .metrics(new SomfyClientMetrics() {
+                @Override
+                public void onRequestCompleted(String endpoint, int statusCode, int requestAttempts, Duration latency, Throwable failure) {
+                    attempts.set(requestAttempts);
+                }
+            })
+            .build();
+
+        assertThat(client.getDeviceById("1"))
+            .isNotNull();
+        assertThat(attempts.get())
+            .isEqualTo(3);
+    }
+
+    @Test
+    public void execute_shouldNotRetryByDefault() throws IOException, InterruptedException {
+
+        HttpResponse<String> errorResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(HTTP_BAD_GATEWAY);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(errorResponse);
+
+        SomfyClient client = SomfyClient.newClient(retryingProperties(), token, mockHttpClient);
+
+        assertThatThrownBy(() -> client.execute(Command.ofCapability(Capability.IDENTIFY), "1"))
+            .isInstanceOf(SomfyApiRequestException.class);
+        verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void execute_shouldNotResendUnavailableRequestsByDefault() throws IOException, InterruptedException {
+
+        HttpResponse<String> unavailableResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(unavailableResponse.statusCode()).thenReturn(HTTP_UNAVAILABLE);
+        when(unavailableResponse.headers())
+            .thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("0")), (name, value) -> true));
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(unavailableResponse);
+
+        SomfyClient client = SomfyClient.newClient(properties, token, mockHttpClient);
+
+        assertThatThrownBy(() -> client.execute(Command.ofCapability(Capability.IDENTIFY), "1"))
+            .isInstanceOf(SomfyApiRequestException.class)
+            .extracting("httpStatus")
+            .isEqualTo(HTTP_UNAVAILABLE);
+        verify(mockHttpClient, times(1)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void getDeviceByIdAsync_shouldRetryTransientErrors() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("device.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IOException("connection reset")))
+            .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        SomfyAsyncClient client = SomfyAsyncClient.newAsyncClient(retryingProperties(), token, mockHttpClient);
+
+        assertThat(client.getDeviceByIdAsync("1").join())
+            .isNotNull();
+        verify(mockHttpClient, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    public void requests_shouldHaveConfiguredTimeout() throws Exception {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("site.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(mockHttpClient.send(request.capture(), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(mockResponse);
+
+        SomfyProperties timeoutProperties = SomfyProperties.builder()
+            .httpOptions(SomfyHttpOptions.builder()
+                .requestTimeout(Duration.ofSeconds(5))
+                .build())
+            .build();
+
+        SomfyClient.newClient(timeoutProperties, token, mockHttpClient).getSiteById("1234-5678-91011-121314");
+
+        assertThat(request.getValue().timeout())
+            .contains(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void listDevices_shouldAcceptCompressedResponsesIfEnabled() throws SomfyTokenFetchException, SomfyTokenExpiredException, IOException, InterruptedException {
+
+        HttpResponse<StringReader> mockResponse = (HttpResponse<StringReader>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(new StringReader(readFile("devices.json")));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        when(mockHttpClient.send(request.capture(), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(mockResponse);
+
+        SomfyProperties compressionProperties = SomfyProperties.builder()
+            .httpOptions(SomfyHttpOptions.builder()
+                .compression(true)
+                .build())
+            .build();
+
+        List<Device> devices = SomfyClient.newClient(compressionProperties, token, mockHttpClient).listDevices("a-site-id");
+
+        assertThat(devices).hasSize(17);
+        assertThat(request.getValue().headers().firstValue("Accept-Encoding"))
+            .contains("gzip, deflate");
+    }
+
+    private SomfyProperties retryingProperties() {
+        return SomfyProperties.builder()
+            .callbackUrl("https://my.callback.url")
+            .consumerKey("a-consumer-key")
+            .consumerSecret("a-consumer-secret")
+            .retryPolicy(RetryPolicy.builder()
+                .maxAttempts(3)
+                .baseDelay(Duration.ofMillis(1))
+                .build())
+            .build();
+    }
+
+    @Test
+    public void listDevicesAsync_shouldCoalesceIdenticalRequests() {
+
+        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(mockResponse.statusCode()).thenReturn(HTTP_OK);
+        when(mockResponse.body())
+            .thenReturn(readFile("devices.json"));
+        when(mockResponse.headers())
+            .thenReturn(NO_HEADERS);
+
+        CompletableFuture<HttpResponse<String>> pendingResponse = new CompletableFuture<>();
+        HttpClient mockHttpClient = mock(HttpClient.class);
+        when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(pendingResponse);
+
+        SomfyAsyncClient client = SomfyAsyncClient.newAsyncClient(properties, token, mockHttpClient);
+        List<CompletableFuture<List<Device>>> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiters.add(client.listDevicesAsync("1234-5678-91011-121314"));
+        }
+        pendingResponse.complete(mockResponse);
+
+        List<Device> devices = waiters.get(0).join();
+        assertThat(waiters)
+            .allSatisfy(waiter -> assertThat(waiter.join()).isSameAs(devices));
+        verify(mockHttpClient, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    }
 }
@@ -0,0 +1,92 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyClientPoolProperties;
+import at.downdrown.somfy.config.SomfyProperties;
+import org.testng.annotations.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class SomfyClientPoolImplTest {
+
+    private final SomfyProperties properties = SomfyProperties.builder()
+        .callbackUrl("https://my.callback.url")
+        .consumerKey("a-consumer-key")
+        .consumerSecret("a-consumer-secret")
+        .build();
+
+    private final SomfyToken token = new SomfyToken(now(), "a-access-token", "a-refresh-token", now().plusHours(1));
+
+    private final Map<String, TokenStore> tokenStores = new ConcurrentHashMap<>();
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    public void getClient_shouldReuseClientPerAccount() {
+
+        SomfyClientPoolImpl pool = newPool(SomfyClientPoolProperties.builder().build());
+        pool.addAccount("a", token);
+        pool.addAccount("b", token);
+
+        assertThat(pool.getClient("a")).isSameAs(pool.getAsyncClient("a"));
+        assertThat(pool.getClient("a")).isNotSameAs(pool.getClient("b"));
+        assertThat(pool.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void getClient_shouldThrowForUnknownAccount() {
+
+        SomfyClientPoolImpl pool = newPool(SomfyClientPoolProperties.builder().build());
+
+        assertThatThrownBy(() -> pool.getClient("unknown")).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.size()).isZero();
+    }
+
+    @Test
+    public void getClient_shouldEvictIdleAccountsAndRestoreTokenFromStore() {
+
+        SomfyClientPoolImpl pool = newPool(SomfyClientPoolProperties.builder().idleTimeout(Duration.ofMinutes(10)).build());
+        pool.addAccount("idle", token);
+        pool.addAccount("active", token);
+        SomfyClient idleClient = pool.getClient("idle");
+
+        nanoClock.addAndGet(Duration.ofMinutes(6).toNanos());
+        pool.getClient("active");
+        nanoClock.addAndGet(Duration.ofMinutes(6).toNanos());
+        pool.getClient("active");
+
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(pool.getClient("idle")).isNotSameAs(idleClient);
+        assertThat(tokenStores.get("idle").load()).contains(token);
+    }
+
+    @Test
+    public void addAccount_shouldEvictLeastRecentlyUsedAccountWhenFull() {
+
+        SomfyClientPoolImpl pool = newPool(SomfyClientPoolProperties.builder().maxAccounts(2).build());
+        pool.addAccount("a", token);
+        nanoClock.incrementAndGet();
+        pool.addAccount("b", token);
+        nanoClock.incrementAndGet();
+        SomfyClient clientA = pool.getClient("a");
+        nanoClock.incrementAndGet();
+        pool.addAccount("c", token);
+
+        assertThat(pool.size()).isEqualTo(2);
+        assertThat(pool.getClient("a")).isSameAs(clientA);
+        assertThat(tokenStores).containsKeys("a", "b", "c");
+    }
+
+    private SomfyClientPoolImpl newPool(SomfyClientPoolProperties poolProperties) {
+        return new SomfyClientPoolImpl(properties, poolProperties,
+            accountId -> tokenStores.computeIfAbsent(accountId, id -> TokenStore.inMemory()),
+            mock(HttpClient.class), nanoClock::get);
+    }
+}
@@ -0,0 +1,58 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SomfyEndpointsTest {
+
+    private final SomfyEndpoints endpoints = new SomfyEndpoints(SomfyProperties.builder().build());
+
+    @Test
+    public void shouldExpandTemplates() {
+
+        assertThat(endpoints.sites())
+            .hasToString("https://api.somfy.com/api/v1/site");
+        assertThat(endpoints.devices("1234-5678"))
+            .hasToString("https://api.somfy.com/api/v1/site/1234-5678/device");
+        assertThat(endpoints.deviceExecution("io://1234-5678/1234567"))
+            .hasToString("https://api.somfy.com/api/v1/device/io%3A%2F%2F1234-5678%2F1234567/exec");
+    }
+
+    @Test
+    public void shouldEncodeReservedAndNonAsciiCharacters() {
+
+        URI deviceUri = endpoints.device("a b?c#d%ü");
+
+        assertThat(deviceUri)
+            .hasToString("https://api.somfy.com/api/v1/device/a%20b%3Fc%23d%25%C3%BC");
+        assertThat(deviceUri.getPath())
+            .isEqualTo("/api/v1/device/a b?c#d%ü");
+    }
+
+    @Test
+    public void shouldStripTrailingSlashOfBaseUrl() {
+
+        SomfyEndpoints trailingSlashEndpoints = new SomfyEndpoints(SomfyProperties.builder()
+            .apiUrl("https://api.somfy.com/api/v1/")
+            .build());
+
+        assertThat(trailingSlashEndpoints.job("42"))
+            .hasToString("https://api.somfy.com/api/v1/job/42");
+    }
+
+    @Test
+    public void shouldRejectInvalidBaseUrls() {
+
+        assertThatThrownBy(() -> new SomfyEndpoints(SomfyProperties.builder().apiUrl("api.somfy.com").build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("apiUrl");
+        assertThatThrownBy(() -> new SomfyEndpoints(SomfyProperties.builder().authUrl("https://accounts.somfy.com?x=1").build()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("authUrl");
+    }
+}
@@ -0,0 +1,219 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.config.SomfyProperties;
+import at.downdrown.somfy.exception.SomfyTokenExpiredException;
+import at.downdrown.somfy.exception.SomfyTokenFetchException;
+import org.testng.annotations.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class SomfyTokenHolderTest {
+
+    private final SomfyToken expiredToken = new SomfyToken(now().minusHours(2), "expired-access-token", "refresh-token", now().minusHours(1));
+    private final SomfyToken refreshedToken = new SomfyToken(now(), "refreshed-access-token", "refresh-token", now().plusHours(1));
+
+    @Test
+    public void getValidToken_shouldReturnRefreshedToken() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshToken(any(SomfyToken.class))).thenReturn(refreshedToken);
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken);
+
+        assertThat(holder.getValidToken().getAccessToken())
+            .isEqualTo("refreshed-access-token");
+    }
+
+    @Test
+    public void getValidTokenAsync_shouldShareInFlightRefresh() {
+
+        CompletableFuture<SomfyToken> pendingRefresh = new CompletableFuture<>();
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshTokenAsync(any(SomfyToken.class))).thenReturn(pendingRefresh);
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken);
+
+        List<CompletableFuture<SomfyToken>> waiters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            waiters.add(holder.getValidTokenAsync());
+        }
+        pendingRefresh.complete(refreshedToken);
+
+        assertThat(waiters)
+            .allSatisfy(waiter -> assertThat(waiter.join()).isSameAs(refreshedToken));
+        verify(authenticator, times(1)).refreshTokenAsync(any(SomfyToken.class));
+    }
+
+    @Test
+    public void getValidToken_shouldRefreshOnlyOnceForConcurrentCallers() throws Exception {
+
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch releaseRefresh = new CountDownLatch(1);
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshToken(any(SomfyToken.class))).thenAnswer(invocation -> {
+            refreshStarted.countDown();
+            releaseRefresh.await();
+            return refreshedToken;
+        });
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<SomfyToken>> results = new ArrayList<>();
+            results.add(executor.submit(holder::getValidToken));
+            assertThat(refreshStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(holder::getValidToken));
+            }
+            releaseRefresh.countDown();
+
+            for (Future<SomfyToken> result : results) {
+                assertThat(result.get(1, TimeUnit.SECONDS)).isSameAs(refreshedToken);
+            }
+            verify(authenticator, times(1)).refreshToken(any(SomfyToken.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void setToken_shouldRefreshProactivelyBeforeExpiry() {
+
+        SomfyToken expiringToken = new SomfyToken(now().minusHours(1), "expiring-access-token", "refresh-token", now().plusSeconds(30));
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshTokenAsync(any(SomfyToken.class))).thenReturn(CompletableFuture.completedFuture(refreshedToken));
+
+        new SomfyTokenHolder(authenticator, Duration.ofMinutes(1), expiringToken);
+
+        verify(authenticator, timeout(1000)).refreshTokenAsync(expiringToken);
+    }
+
+    @Test
+    public void setToken_shouldRefreshProactivelyWithRealAuthenticator() throws Exception {
+
+        HttpResponse<String> tokenResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        when(tokenResponse.statusCode()).thenReturn(HTTP_OK);
+        when(tokenResponse.body()).thenReturn("{\"access_token\": \"refreshed-access-token\", \"refresh_token\": \"refresh-token\", \"expires_in\": 3600}");
+        HttpClient httpClient = mock(HttpClient.class);
+        when(httpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(tokenResponse));
+
+        SomfyProperties properties = SomfyProperties.builder()
+            .callbackUrl("https://my.callback.url")
+            .consumerKey("a-consumer-key")
+            .consumerSecret("a-consumer-secret")
+            .build();
+        SomfyToken expiringToken = new SomfyToken(now().minusHours(1), "expiring-access-token", "refresh-token",
+            now().plus(properties.getTokenRefreshLeeway()).plusNanos(TimeUnit.MILLISECONDS.toNanos(50) + 123_456));
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(new SomfyAuthenticatorImpl(properties, httpClient), properties.getTokenRefreshLeeway(), expiringToken);
+
+        verify(httpClient, timeout(2000)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        for (int i = 0; i < 100 && holder.getValidToken() == expiringToken; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(holder.getValidToken().getAccessToken()).isEqualTo("refreshed-access-token");
+    }
+
+    @Test
+    public void setToken_shouldRescheduleProactiveRefreshIfTokenIsUnchanged() {
+
+        SomfyToken expiringToken = new SomfyToken(now().minusHours(1), "expiring-access-token", "refresh-token", now().plusSeconds(30));
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshTokenAsync(any(SomfyToken.class)))
+            .thenReturn(CompletableFuture.completedFuture(expiringToken))
+            .thenReturn(CompletableFuture.completedFuture(refreshedToken));
+
+        new SomfyTokenHolder(authenticator, Duration.ofMinutes(1), expiringToken);
+
+        verify(authenticator, timeout(5000).times(2)).refreshTokenAsync(expiringToken);
+    }
+
+    @Test
+    public void getValidToken_shouldStoreRefreshedToken() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshToken(any(SomfyToken.class))).thenReturn(refreshedToken);
+        TokenStore tokenStore = TokenStore.inMemory();
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken, tokenStore, SomfyClientMetrics.NOOP, ForkJoinPool.commonPool());
+        assertThat(tokenStore.load()).containsSame(expiredToken);
+
+        holder.getValidToken();
+
+        assertThat(tokenStore.load()).containsSame(refreshedToken);
+    }
+
+    @Test
+    public void getValidToken_shouldUseNewerStoredTokenInsteadOfRefreshing() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        TokenStore tokenStore = TokenStore.inMemory();
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken, tokenStore, SomfyClientMetrics.NOOP, ForkJoinPool.commonPool());
+        // another client sharing the store has refreshed the token in the meantime
+        tokenStore.store(refreshedToken);
+
+        assertThat(holder.getValidToken()).isSameAs(refreshedToken);
+        verify(authenticator, never()).refreshToken(any(SomfyToken.class));
+    }
+
+    @Test
+    public void getValidTokenAsync_shouldEndRefreshIfAuthenticatorThrows() {
+
+        SomfyAuthenticator authenticator = mock(SomfyAuthenticator.class);
+        when(authenticator.refreshTokenAsync(any(SomfyToken.class)))
+            .thenThrow(new NullPointerException("refreshToken"))
+            .thenReturn(CompletableFuture.completedFuture(refreshedToken));
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(authenticator, Duration.ZERO, expiredToken);
+
+        assertThatThrownBy(() -> holder.getValidTokenAsync().get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(NullPointerException.class);
+        assertThat(holder.getValidTokenAsync().join())
+            .isSameAs(refreshedToken);
+    }
+
+    @Test
+    public void constructor_shouldPreferStoredTokenIfNoneIsPassed() throws SomfyTokenFetchException, SomfyTokenExpiredException {
+
+        TokenStore tokenStore = TokenStore.inMemory();
+        tokenStore.store(refreshedToken);
+
+        SomfyTokenHolder holder = new SomfyTokenHolder(mock(SomfyAuthenticator.class), Duration.ZERO, null, tokenStore, SomfyClientMetrics.NOOP, ForkJoinPool.commonPool());
+
+        assertThat(holder.getValidToken()).isSameAs(refreshedToken);
+    }
+}
@@ -0,0 +1,73 @@
+package at.downdrown.somfy;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long ONE_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    @Test
+    public void reserve_shouldAllowBurstWithoutWaiting() {
+
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, nanoClock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.reserve()).isZero();
+        }
+    }
+
+    @Test
+    public void reserve_shouldQueueRequestsAboveTheRate() {
+
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 1, nanoClock::get);
+
+        assertThat(rateLimiter.reserve()).isZero();
+        assertThat(rateLimiter.reserve()).isZero();
+        assertThat(rateLimiter.reserve()).isEqualTo(ONE_SECOND / 10);
+        assertThat(rateLimiter.reserve()).isEqualTo(2 * ONE_SECOND / 10);
+    }
+
+    @Test
+    public void reserve_shouldRefillAfterIdling() {
+
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 2, nanoClock::get);
+
+        rateLimiter.reserve();
+        rateLimiter.reserve();
+        nanoClock.addAndGet(ONE_SECOND);
+
+        assertThat(rateLimiter.reserve()).isZero();
+        assertThat(rateLimiter.reserve()).isZero();
+    }
+
+    @Test
+    public void onThrottled_shouldPauseAndHalveTheRate() {
+
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, nanoClock::get);
+
+        rateLimiter.onThrottled(Duration.ofSeconds(2));
+
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(5);
+        assertThat(rateLimiter.reserve()).isEqualTo(2 * ONE_SECOND);
+    }
+
+    @Test
+    public void onSuccess_shouldRecoverTheConfiguredRate() {
+
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(10, 5, nanoClock::get);
+
+        rateLimiter.onThrottled(Duration.ZERO);
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onSuccess();
+        }
+
+        assertThat(rateLimiter.getPermitsPerSecond()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,98 @@
+package at.downdrown.somfy;
+
+import at.downdrown.somfy.domain.Device;
+import at.downdrown.somfy.domain.DeviceStates;
+import at.downdrown.somfy.domain.Site;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TopologySnapshotTest {
+
+    private static <T> T readJson(String filename, Class<T> type) throws IOException {
+        try (InputStream in = Objects.requireNonNull(TopologySnapshotTest.class.getResourceAsStream(filename))) {
+            return Json.fromJson(new String(in.readAllBytes(), StandardCharsets.UTF_8), type);
+        }
+    }
+
+    @Test
+    public void write_shouldRoundTripSitesAndDevices() throws IOException {
+
+        List<Site> sites = List.of(readJson("sites.json", Site[].class));
+        List<Device> devices = List.of(readJson("devices.json", Device[].class));
+        TopologySnapshot snapshot = TopologySnapshot.of(sites, Map.of(sites.get(0).getId(), devices));
+
+        Path path = Files.createTempDirectory("somfy").resolve("topology.bin");
+        snapshot.write(path);
+
+        assertThat(TopologySnapshot.read(path)).hasValueSatisfying(readSnapshot -> {
+            assertThat(readSnapshot.getCreatedAt().toEpochMilli()).isEqualTo(snapshot.getCreatedAt().toEpochMilli());
+            assertThat(readSnapshot.getSites()).isEqualTo(sites);
+            assertThat(readSnapshot.getDevices(sites.get(0).getId())).isEqualTo(devices);
+            assertThat(readSnapshot.getDevices("unknown")).isEmpty();
+        });
+        assertThat(Files.size(path)).isLessThan(Json.toJson(devices).length());
+    }
+
+    @Test
+    public void write_shouldKeepIntegersBeyondDoublePrecision() throws IOException {
+
+        Device device = Json.fromJson("{" +
+            "\"id\": \"1\"," +
+            "\"states\": [" +
+            "{\"name\": \"counter\", \"value\": 9007199254740993, \"type\": \"integer\"}," +
+            "{\"name\": \"offset\", \"value\": -42, \"type\": \"integer\"}," +
+            "{\"name\": \"temperature\", \"value\": 21.5, \"type\": \"float\"}" +
+            "]}", Device.class);
+
+        Path path = Files.createTempDirectory("somfy").resolve("topology.bin");
+        TopologySnapshot.of(List.of(), Map.of("site", List.of(device))).write(path);
+
+        assertThat(TopologySnapshot.read(path)).hasValueSatisfying(readSnapshot -> {
+            DeviceStates states = readSnapshot.getDevices("site").get(0).getDeviceStates();
+            assertThat(states.getLong("counter")).isEqualTo(9007199254740993L);
+            assertThat(states.getInt("offset")).isEqualTo(-42);
+            assertThat(states.getDouble("temperature")).isEqualTo(21.5);
+        });
+    }
+
+    @Test
+    public void read_shouldReturnEmptyIfThereIsNoSnapshot() throws IOException {
+
+        Path path = Files.createTempDirectory("somfy").resolve("topology.bin");
+
+        assertThat(TopologySnapshot.read(path)).isEmpty();
+    }
+
+    @Test
+    public void read_shouldRejectMalformedSnapshots() throws IOException {
+
+        Path path = Files.createTempDirectory("somfy").resolve("topology.bin");
+        Files.write(path, "not a snapshot".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> TopologySnapshot.read(path)).isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    public void read_shouldRejectTruncatedSnapshots() throws IOException {
+
+        Path path = Files.createTempDirectory("somfy").resolve("topology.bin");
+        TopologySnapshot.of(List.of(readJson("sites.json", Site[].class)), Map.of("site", List.of(readJson("devices.json", Device[].class)))).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThatThrownBy(() -> TopologySnapshot.read(path)).isInstanceOf(UncheckedIOException.class);
+    }
+}
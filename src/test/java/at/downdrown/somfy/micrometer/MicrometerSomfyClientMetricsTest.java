@@ -0,0 +1,74 @@
+package at.downdrown.somfy.micrometer;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MicrometerSomfyClientMetricsTest {
+
+    @Test
+    public void onRequestCompleted_shouldRecordTimerPerEndpointAndStatus() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerSomfyClientMetrics metrics = new MicrometerSomfyClientMetrics(registry, Tags.of("client", "test"));
+
+        metrics.onRequestCompleted("getDeviceById", 200, 1, Duration.ofMillis(20), null);
+        metrics.onRequestCompleted("getDeviceById", 200, 2, Duration.ofMillis(40), null);
+        metrics.onRequestCompleted("getDeviceById", 0, 3, Duration.ofMillis(60), new IOException());
+
+        assertThat(registry.get("somfy.client.requests")
+            .tags("client", "test", "endpoint", "getDeviceById", "status", "200", "outcome", "SUCCESS")
+            .timer())
+            .satisfies(timer -> {
+                assertThat(timer.count()).isEqualTo(2);
+                assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(60);
+            });
+        assertThat(registry.get("somfy.client.requests")
+            .tags("endpoint", "getDeviceById", "status", "NONE", "outcome", "ERROR")
+            .timer()
+            .count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void onRequestCompleted_shouldReuseMeters() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerSomfyClientMetrics metrics = new MicrometerSomfyClientMetrics(registry);
+
+        metrics.onRequestCompleted("listSites", 200, 1, Duration.ofMillis(20), null);
+        Timer timer = registry.get("somfy.client.requests").timer();
+        metrics.onRequestCompleted("listSites", 200, 1, Duration.ofMillis(20), null);
+
+        assertThat(registry.getMeters()).containsExactly(timer);
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRecordRetriesBodySizesDeserializationAndTokenRefreshes() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerSomfyClientMetrics metrics = new MicrometerSomfyClientMetrics(registry);
+
+        metrics.onRetry("listDevices", 429, Duration.ofSeconds(1));
+        metrics.onResponseBodyReceived("listDevices", 1024);
+        metrics.onDeserialized("listDevices", Duration.ofMillis(2));
+        metrics.onTokenRefreshed(Duration.ofMillis(100), null);
+
+        assertThat(registry.get("somfy.client.retries").tags("endpoint", "listDevices", "status", "429").counter().count())
+            .isEqualTo(1);
+        assertThat(registry.get("somfy.client.response.bytes").tags("endpoint", "listDevices").summary().totalAmount())
+            .isEqualTo(1024);
+        assertThat(registry.get("somfy.client.deserialization").tags("endpoint", "listDevices").timer().count())
+            .isEqualTo(1);
+        assertThat(registry.get("somfy.client.token.refresh").tags("outcome", "SUCCESS").timer().count())
+            .isEqualTo(1);
+    }
+}